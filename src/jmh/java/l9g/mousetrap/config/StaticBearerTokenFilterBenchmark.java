@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+import l9g.mousetrap.token.BearerTokenConfig;
+import l9g.mousetrap.token.BearerTokenRegistry;
+import l9g.mousetrap.token.BenchmarkFixtures;
+import l9g.mousetrap.token.TokenRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ *
+ * Cost of authenticating a request in
+ * {@link SecurityConfig.StaticBearerTokenFilter}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticBearerTokenFilterBenchmark
+{
+  @Param({"10", "1000", "100000"})
+  private int tokens;
+
+  private SecurityConfig.StaticBearerTokenFilter filter;
+
+  private MockHttpServletRequest accepted;
+
+  private MockHttpServletRequest unknown;
+
+  private MockHttpServletResponse response;
+
+  private final FilterChain chain = (request, response) ->
+  {
+  };
+
+  @Setup
+  public void setup()
+  {
+    BearerTokenConfig config = BenchmarkFixtures.config(tokens);
+    // measure the limiter without ever rejecting
+    config.getRateLimit().setRequestsPerSecond(1e9);
+    config.getRateLimit().setBurst(Integer.MAX_VALUE);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    filter = new SecurityConfig.StaticBearerTokenFilter(
+      new BearerTokenRegistry(config),
+      new TokenRateLimiter(config, meterRegistry), meterRegistry);
+
+    accepted = new MockHttpServletRequest("POST", "/api/v1/micetro");
+    accepted.addHeader(HttpHeaders.AUTHORIZATION,
+      BenchmarkFixtures.authorizationHeader(
+        BenchmarkFixtures.tokenValue(tokens / 2)));
+
+    unknown = new MockHttpServletRequest("POST", "/api/v1/micetro");
+    unknown.addHeader(HttpHeaders.AUTHORIZATION,
+      BenchmarkFixtures.authorizationHeader("no-such-token"));
+
+    response = new MockHttpServletResponse();
+  }
+
+  @Benchmark
+  public void acceptKnownToken()
+    throws Exception
+  {
+    filter.doFilterInternal(accepted, response, chain);
+  }
+
+  @Benchmark
+  public void rejectUnknownToken()
+    throws Exception
+  {
+    filter.doFilterInternal(unknown, response, chain);
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import l9g.mousetrap.micetro.api.GetDNSRecordsParams;
+import l9g.mousetrap.micetro.api.MicetroResults;
+import l9g.mousetrap.micetro.api.RefPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * Cost of encoding a {@code GetDNSRecords} {@link JsonRpcRequest} and of
+ * reading the record refs from its response.
+ * <p>
+ * {@code extractRefs} is the path {@code MicetroClient} takes: the response
+ * is streamed through {@link MicetroResults#DNS_RECORDS}. {@code treeRefs} is
+ * the former decode into a {@code LinkedHashMap} tree the refs were then
+ * picked from.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRpcCodecBenchmark
+{
+  private static final TypeReference<JsonRpcResponse<LinkedHashMap<String, Object>>> TREE_TYPE =
+    new TypeReference<>()
+  {
+  };
+
+  @Param({"1", "50", "500"})
+  private int records;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final ObjectWriter requestWriter =
+    objectMapper.writerFor(JsonRpcRequest.class);
+
+  private final ObjectReader treeReader = objectMapper.readerFor(TREE_TYPE);
+
+  private JsonRpcRequest request;
+
+  private byte[] response;
+
+  @Setup
+  public void setup()
+    throws Exception
+  {
+    request = new JsonRpcRequest("GetDNSRecords",
+      GetDNSRecordsParams.of("dnsZones/1234",
+        "type=TXT comment=l9g-mousetrap name=_acme-challenge", 500)
+        .withSession("0123456789abcdef0123456789abcdef"), 42);
+
+    List<Map<String, Object>> dnsRecords = new ArrayList<>();
+    for(int i = 0; i < records; i ++)
+    {
+      Map<String, Object> record = new LinkedHashMap<>();
+      record.put("ref", "dnsRecords/" + i);
+      record.put("name", "_acme-challenge");
+      record.put("type", "TXT");
+      record.put("ttl", "0");
+      record.put("data", "\"challenge-value-" + i + "\"");
+      record.put("comment", "l9g-mousetrap");
+      record.put("enabled", true);
+      record.put("dnsZoneRef", "dnsZones/1234");
+      dnsRecords.add(record);
+    }
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("dnsRecords", dnsRecords);
+    result.put("totalResults", records);
+    response = objectMapper.writeValueAsBytes(
+      new JsonRpcResponse<>("2.0", 42, result, null));
+  }
+
+  @Benchmark
+  public byte[] serializeRequest()
+    throws Exception
+  {
+    return requestWriter.writeValueAsBytes(request);
+  }
+
+  @Benchmark
+  public RefPage extractRefs()
+    throws Exception
+  {
+    try(JsonParser parser = objectMapper.createParser(response))
+    {
+      return readResult(parser);
+    }
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public List<String> treeRefs()
+    throws Exception
+  {
+    JsonRpcResponse<LinkedHashMap<String, Object>> decoded =
+      treeReader.readValue(response);
+    List<Map<String, Object>> list =
+      (List<Map<String, Object>>)decoded.result().get("dnsRecords");
+    List<String> refs = new ArrayList<>();
+    for(Map<String, Object> map : list)
+    {
+      String ref = (String)map.get("ref");
+      if(ref != null)
+      {
+        refs.add(ref);
+      }
+    }
+    return refs;
+  }
+
+  /**
+   * The envelope walk of {@code MicetroClient}, without the error handling.
+   */
+  private static RefPage readResult(JsonParser parser)
+    throws IOException
+  {
+    RefPage result = null;
+    parser.nextToken();
+    while(parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      if("result".equals(field))
+      {
+        result = MicetroResults.DNS_RECORDS.extract(parser);
+      }
+      else
+      {
+        parser.skipChildren();
+      }
+    }
+    return result;
+  }
+
+}
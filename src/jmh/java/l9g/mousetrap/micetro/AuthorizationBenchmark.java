@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import l9g.mousetrap.token.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * Cost of request normalization and the zone/FQDN permission checks in
+ * {@link MicetroController} and {@link MicetroService}. The checked zone and
+ * FQDN are the last entries of the permission lists.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark
+{
+  @Param({"1", "10", "100", "1000", "10000"})
+  private int permitted;
+
+  private BearerToken token;
+
+  private String zone;
+
+  private String fqdnZone;
+
+  private String fqdnName;
+
+  @Setup
+  public void setup()
+  {
+    List<String> zones = BenchmarkFixtures.zones(permitted);
+    List<String> fqdns = BenchmarkFixtures.fqdns(permitted);
+    token = BenchmarkFixtures.token(0, zones, fqdns);
+    zone = zones.get(permitted - 1).toUpperCase();
+    fqdnZone = "example.de.";
+    fqdnName = fqdns.get(permitted - 1)
+      .substring(0, fqdns.get(permitted - 1).length() - ".example.de.".length());
+  }
+
+  @Benchmark
+  public String normalizeZone()
+  {
+    return MicetroController.normalizeZone("example.de");
+  }
+
+  @Benchmark
+  public String normalizeName()
+  {
+    return MicetroController.normalizeName(
+      "example.de.", "_acme-challenge.host1.example.de.");
+  }
+
+  @Benchmark
+  public boolean checkFqdn()
+  {
+    return MicetroController.checkFqdn(token, fqdnZone, fqdnName);
+  }
+
+  @Benchmark
+  public boolean zonePermitted()
+  {
+    return MicetroService.zonePermitted(token, zone);
+  }
+
+}
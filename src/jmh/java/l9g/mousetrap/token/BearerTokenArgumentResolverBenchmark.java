@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ *
+ * Cost of {@link BearerTokenArgumentResolver#resolveArgument} for an
+ * authenticated request. The token comes with the principal, so the cost
+ * does not depend on the number of configured tokens.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BearerTokenArgumentResolverBenchmark
+{
+  @Param({"10", "1000", "100000"})
+  private int tokens;
+
+  private BearerTokenArgumentResolver resolver;
+
+  private NativeWebRequest webRequest;
+
+  @Setup
+  public void setup()
+  {
+    resolver = new BearerTokenArgumentResolver();
+
+    String name = BenchmarkFixtures.tokenName(tokens / 2);
+    BearerTokenConfig.BearerToken token =
+      BenchmarkFixtures.config(tokens).getMap().get(name);
+    MockHttpServletRequest request =
+      new MockHttpServletRequest("POST", "/api/v1/micetro");
+    // as set by the security filter
+    request.setUserPrincipal(new StaticBearerAuthenticationToken(name, token));
+    webRequest = new ServletWebRequest(request);
+  }
+
+  @Benchmark
+  public Object resolveArgument()
+  {
+    return resolver.resolveArgument(null, null, webRequest, null);
+  }
+
+}
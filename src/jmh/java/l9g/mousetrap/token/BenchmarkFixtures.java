@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+
+/**
+ *
+ * Synthetic token configurations for the benchmarks.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public final class BenchmarkFixtures
+{
+  private BenchmarkFixtures()
+  {
+  }
+
+  public static String tokenName(int i)
+  {
+    return "token-" + i;
+  }
+
+  public static String tokenValue(int i)
+  {
+    return "benchmark-token-value-" + i;
+  }
+
+  public static String authorizationHeader(String tokenValue)
+  {
+    return "Bearer " + Base64.getEncoder().encodeToString(
+      tokenValue.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static List<String> zones(int count)
+  {
+    List<String> zones = new ArrayList<>(count);
+    for(int i = 0; i < count; i++)
+    {
+      zones.add("zone" + i + ".example.de.");
+    }
+    return zones;
+  }
+
+  public static List<String> fqdns(int count)
+  {
+    List<String> fqdns = new ArrayList<>(count);
+    for(int i = 0; i < count; i++)
+    {
+      fqdns.add("_acme-challenge.host" + i + ".example.de.");
+    }
+    return fqdns;
+  }
+
+  public static BearerToken token(
+    int i, List<String> permittedZones, List<String> permittedFqdns)
+  {
+    BearerToken token = new BearerToken();
+    token.setToken(tokenValue(i));
+    token.setOwner("owner-" + i);
+    token.setDescription("benchmark token " + i);
+    token.setPermittedZones(permittedZones);
+    token.setPermittedFqdns(permittedFqdns);
+    token.setEnabled(true);
+    return token;
+  }
+
+  public static BearerTokenConfig config(int tokens)
+  {
+    List<String> zones = zones(2);
+    Map<String, BearerToken> map = new LinkedHashMap<>();
+    for(int i = 0; i < tokens; i++)
+    {
+      map.put(tokenName(i), token(i, zones, List.of()));
+    }
+    BearerTokenConfig config = new BearerTokenConfig();
+    config.setMap(map);
+    return config;
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import l9g.mousetrap.dns.DnsResolver;
+import l9g.mousetrap.dns.PropagationConfig;
+import l9g.mousetrap.dns.PropagationResult;
+import l9g.mousetrap.dns.PropagationService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Runs {@link DnsResolver} and {@link PropagationService} against the
+ * {@link DnsStub}: query encoding, compressed {@code NS} and split
+ * {@code TXT} answers, NXDOMAIN, a record that shows up late and one that
+ * never does. Fails with an exception on the first mismatch.
+ * <p>
+ * {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.main=l9g.mousetrap.loadtest.DnsCheck}
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class DnsCheck
+{
+  private static final String ZONE = "zone0.loadtest.example.";
+
+  private static final String FQDN = "_acme-challenge." + ZONE;
+
+  public static void main(String[] args)
+    throws Exception
+  {
+    try(DnsStub stub = new DnsStub())
+    {
+      stub.start();
+
+      PropagationConfig config = new PropagationConfig();
+      config.setNameservers(List.of(stub.getHostAndPort()));
+      config.setQueryTimeoutMillis(200);
+      config.setInitialBackoffMillis(50);
+      config.setMaxBackoffMillis(200);
+      config.setTimeoutSeconds(2);
+
+      DnsResolver resolver = new DnsResolver(config);
+      PropagationService propagation = new PropagationService(resolver, config);
+
+      checkQueries(stub, resolver);
+      checkPropagated(stub, propagation);
+      checkTimeout(stub, resolver, propagation);
+    }
+    log.info("DNS checks passed");
+  }
+
+  private static void checkQueries(DnsStub stub, DnsResolver resolver)
+    throws Exception
+  {
+    String longValue = "x".repeat(300);
+    stub.setTxt(FQDN, "first", longValue);
+    stub.setNs(ZONE, "ns1." + ZONE, "ns.other.example.");
+
+    List<String> txt = resolver.query(
+      stub.getAddress(), "_ACME-challenge." + ZONE, DnsResolver.TYPE_TXT,
+      false).get(1, TimeUnit.SECONDS);
+    expect("TXT answers", List.of("first", longValue), txt);
+    expect("TXT question",
+      new DnsStub.Question(last(stub).id(), FQDN, DnsStub.TYPE_TXT, false),
+      last(stub));
+
+    List<String> ns = resolver.query(
+      stub.getAddress(), ZONE, DnsResolver.TYPE_NS, true)
+      .get(1, TimeUnit.SECONDS);
+    expect("NS answers", List.of("ns1." + ZONE, "ns.other.example."), ns);
+    expect("NS recursion desired", true, last(stub).recursive());
+
+    List<String> missing = resolver.query(
+      stub.getAddress(), "unknown." + ZONE, DnsResolver.TYPE_TXT, false)
+      .get(1, TimeUnit.SECONDS);
+    expect("NXDOMAIN answers", List.of(), missing);
+    log.info("queries: TXT {} chars, NS {}, NXDOMAIN ok",
+      txt.stream().mapToInt(String :: length).sum(), ns);
+  }
+
+  private static void checkPropagated(
+    DnsStub stub, PropagationService propagation)
+  {
+    stub.setTxt(FQDN, "old");
+    CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS)
+      .execute(() -> stub.setTxt(FQDN, "old", "new"));
+
+    PropagationResult result =
+      propagation.awaitPropagation(ZONE, FQDN, "new");
+    expect("propagated", true, result.propagated());
+    expect("pending", List.of(), result.pending());
+    log.info("propagated after {}ms", result.elapsed().toMillis());
+  }
+
+  private static void checkTimeout(DnsStub stub, DnsResolver resolver,
+    PropagationService propagation)
+    throws Exception
+  {
+    stub.setSilent(true);
+    try
+    {
+      resolver.query(stub.getAddress(), FQDN, DnsResolver.TYPE_TXT, false)
+        .get(2, TimeUnit.SECONDS);
+      throw new IllegalStateException("silent query: answer expected to fail");
+    }
+    catch(ExecutionException ex)
+    {
+      expect("silent query", SocketTimeoutException.class,
+        ex.getCause().getClass());
+    }
+
+    PropagationResult result =
+      propagation.awaitPropagation(ZONE, FQDN, "never");
+    expect("propagated", false, result.propagated());
+    expect("pending", List.of(stub.getHostAndPort()), result.pending());
+    log.info("timed out after {}ms, pending {}", result.elapsed().toMillis(),
+      result.pending());
+    stub.setSilent(false);
+  }
+
+  private static DnsStub.Question last(DnsStub stub)
+  {
+    List<DnsStub.Question> questions = stub.getQuestions();
+    return questions.get(questions.size() - 1);
+  }
+
+  private static void expect(String what, Object expected, Object actual)
+  {
+    if( ! Objects.equals(expected, actual))
+    {
+      throw new IllegalStateException(
+        what + ": expected " + expected + " but got " + actual);
+    }
+  }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Authoritative DNS stand-in over UDP for the propagation checks. It answers
+ * {@code TXT} and {@code NS} questions from an in-memory table, NXDOMAIN for
+ * unknown names, and can be switched silent to let queries time out.
+ * <p>
+ * Answer names are compressed pointers to the question, as real servers
+ * send them; {@code NS} targets below the question name end in a pointer as
+ * well. {@code TXT} values longer than 255 bytes are split into several
+ * character strings.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class DnsStub implements AutoCloseable
+{
+  public static final int TYPE_NS = 2;
+
+  public static final int TYPE_TXT = 16;
+
+  private static final int CLASS_IN = 1;
+
+  private static final int QUESTION_OFFSET = 12;
+
+  private static final int POINTER_TO_QUESTION = 0xc000 | QUESTION_OFFSET;
+
+  private static final int RCODE_NXDOMAIN = 3;
+
+  private final DatagramChannel channel;
+
+  private final Map<String, List<String>> txtRecords =
+    new ConcurrentHashMap<>();
+
+  private final Map<String, List<String>> nsRecords =
+    new ConcurrentHashMap<>();
+
+  private final List<Question> questions = new CopyOnWriteArrayList<>();
+
+  private volatile boolean silent;
+
+  /**
+   * A received question.
+   *
+   * @param recursive whether the recursion-desired flag was set
+   */
+  public record Question(int id, String name, int type, boolean recursive)
+    {
+  }
+
+  public DnsStub()
+    throws IOException
+  {
+    channel = DatagramChannel.open();
+    channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  public void start()
+  {
+    Thread.ofPlatform().daemon().name("dns-stub").start(this :: serve);
+    log.info("DNS stub listening on {}", getAddress());
+  }
+
+  public InetSocketAddress getAddress()
+  {
+    try
+    {
+      return (InetSocketAddress)channel.getLocalAddress();
+    }
+    catch(IOException ex)
+    {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * {@code host:port} of the stub, as the propagation settings expect it.
+   */
+  public String getHostAndPort()
+  {
+    InetSocketAddress address = getAddress();
+    return address.getAddress().getHostAddress() + ":" + address.getPort();
+  }
+
+  public void setTxt(String name, String... values)
+  {
+    txtRecords.put(normalize(name), List.of(values));
+  }
+
+  public void setNs(String zone, String... targets)
+  {
+    nsRecords.put(normalize(zone), List.of(targets));
+  }
+
+  /**
+   * Drops all queries without an answer while set.
+   */
+  public void setSilent(boolean silent)
+  {
+    this.silent = silent;
+  }
+
+  /**
+   * The questions received so far, in order.
+   */
+  public List<Question> getQuestions()
+  {
+    return List.copyOf(questions);
+  }
+
+  @Override
+  public void close()
+  {
+    try
+    {
+      channel.close();
+    }
+    catch(IOException ex)
+    {
+      // nothing left to do
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private void serve()
+  {
+    ByteBuffer buffer = ByteBuffer.allocate(512);
+
+    while(channel.isOpen())
+    {
+      try
+      {
+        buffer.clear();
+        SocketAddress client = channel.receive(buffer);
+        buffer.flip();
+        if(buffer.remaining() <= QUESTION_OFFSET)
+        {
+          continue;
+        }
+
+        Question question = readQuestion(buffer);
+        questions.add(question);
+        if( ! silent)
+        {
+          channel.send(answer(buffer, question), client);
+        }
+      }
+      catch(ClosedChannelException ex)
+      {
+        return;
+      }
+      catch(IOException | RuntimeException ex)
+      {
+        log.warn("dns stub: {}", ex.toString());
+      }
+    }
+  }
+
+  private static Question readQuestion(ByteBuffer packet)
+  {
+    int id = packet.getShort(0) & 0xffff;
+    boolean recursive = (packet.getShort(2) & 0x0100) != 0;
+
+    StringBuilder name = new StringBuilder();
+    int offset = QUESTION_OFFSET;
+    int len;
+    while((len = packet.get(offset) & 0xff) != 0)
+    {
+      byte[] label = new byte[len];
+      packet.get(offset + 1, label);
+      name.append(new String(label, StandardCharsets.US_ASCII)).append('.');
+      offset += 1 + len;
+    }
+    int type = packet.getShort(offset + 1) & 0xffff;
+    return new Question(id, normalize(name.toString()), type, recursive);
+  }
+
+  private ByteBuffer answer(ByteBuffer query, Question question)
+  {
+    List<String> values = switch(question.type())
+    {
+      case TYPE_TXT -> txtRecords.get(question.name());
+      case TYPE_NS -> nsRecords.get(question.name());
+      default -> List.of();
+    };
+    boolean known = txtRecords.containsKey(question.name())
+      || nsRecords.containsKey(question.name());
+
+    // the question section ends 4 bytes after its name
+    int questionEnd = QUESTION_OFFSET;
+    while(query.get(questionEnd) != 0)
+    {
+      questionEnd += 1 + (query.get(questionEnd) & 0xff);
+    }
+    questionEnd += 5;
+
+    ByteBuffer packet = ByteBuffer.allocate(4096);
+    packet.putShort((short)question.id());
+    // QR, AA, RD copied from the query, NXDOMAIN for unknown names
+    packet.putShort((short)(0x8400 | (query.getShort(2) & 0x0100)
+      | (known ? 0 : RCODE_NXDOMAIN)));
+    packet.putShort((short)1);
+    packet.putShort((short)(values == null ? 0 : values.size()));
+    packet.putShort((short)0).putShort((short)0);
+    packet.put(query.slice(QUESTION_OFFSET, questionEnd - QUESTION_OFFSET));
+
+    if(values != null)
+    {
+      for(String value : values)
+      {
+        packet.putShort((short)POINTER_TO_QUESTION);
+        packet.putShort((short)question.type()).putShort((short)CLASS_IN);
+        packet.putInt(0);
+        int lengthAt = packet.position();
+        packet.putShort((short)0);
+        if(question.type() == TYPE_TXT)
+        {
+          putCharacterStrings(packet, value);
+        }
+        else
+        {
+          putName(packet, normalize(value), question.name());
+        }
+        packet.putShort(lengthAt,
+          (short)(packet.position() - lengthAt - 2));
+      }
+    }
+    return packet.flip();
+  }
+
+  private static void putCharacterStrings(ByteBuffer packet, String value)
+  {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int offset = 0;
+    do
+    {
+      int len = Math.min(255, bytes.length - offset);
+      packet.put((byte)len).put(bytes, offset, len);
+      offset += len;
+    }
+    while(offset < bytes.length);
+  }
+
+  /**
+   * Writes {@code name}, ending in a pointer to the question if it lies below
+   * {@code questionName}.
+   */
+  private static void putName(
+    ByteBuffer packet, String name, String questionName)
+  {
+    boolean compressed = name.endsWith("." + questionName);
+    String labels = compressed
+      ? name.substring(0, name.length() - questionName.length() - 1) : name;
+
+    for(String label : labels.split("\\."))
+    {
+      if( ! label.isEmpty())
+      {
+        byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+        packet.put((byte)bytes.length).put(bytes);
+      }
+    }
+    if(compressed)
+    {
+      packet.putShort((short)POINTER_TO_QUESTION);
+    }
+    else
+    {
+      packet.put((byte)0);
+    }
+  }
+
+  private static String normalize(String name)
+  {
+    String lower = name.toLowerCase(Locale.ROOT);
+    return lower.endsWith(".") ? lower : lower + ".";
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ *
+ * Simulated server-side latency of the Micetro stub.
+ * <p>
+ * Parsed from a short spec:
+ * <ul>
+ * <li>{@code none}</li>
+ * <li>{@code fixed:5ms}</li>
+ * <li>{@code uniform:2ms:20ms}</li>
+ * <li>{@code lognormal:10ms:0.5} (median and sigma, gives a long tail)</li>
+ * </ul>
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@FunctionalInterface
+public interface LatencyDistribution
+{
+  LatencyDistribution NONE = () -> 0;
+
+  long sampleNanos();
+
+  static LatencyDistribution fixed(Duration latency)
+  {
+    long nanos = latency.toNanos();
+    return () -> nanos;
+  }
+
+  static LatencyDistribution uniform(Duration min, Duration max)
+  {
+    long from = min.toNanos();
+    long to = max.toNanos();
+    return () -> from == to ? from
+      : ThreadLocalRandom.current().nextLong(from, to);
+  }
+
+  static LatencyDistribution logNormal(Duration median, double sigma)
+  {
+    double mu = Math.log(median.toNanos());
+    return () -> (long)Math.exp(
+      mu + sigma * ThreadLocalRandom.current().nextGaussian());
+  }
+
+  static LatencyDistribution parse(String spec)
+  {
+    String[] parts = spec.trim().split(":");
+    return switch(parts[0])
+    {
+      case "none" -> NONE;
+      case "fixed" -> fixed(duration(parts, 1));
+      case "uniform" -> uniform(duration(parts, 1), duration(parts, 2));
+      case "lognormal" -> logNormal(duration(parts, 1),
+        Double.parseDouble(parts[2]));
+      default -> throw new IllegalArgumentException(
+        "unknown latency distribution: " + spec);
+    };
+  }
+
+  private static Duration duration(String[] parts, int index)
+  {
+    return DurationStyle.detectAndParse(parts[index]);
+  }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Closed-loop load generator for {@code /api/v1/micetro}. Every worker is a
+ * virtual thread that adds a TXT record with one of the synthetic tokens and
+ * removes it again, as an ACME client does. Latency is recorded per
+ * operation; the warmup phase is discarded.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class LoadGenerator
+{
+  private final URI endpoint;
+
+  private final List<SyntheticToken> tokens;
+
+  private final int concurrency;
+
+  private final HttpClient httpClient;
+
+  private final Map<String, OperationStats> stats = new TreeMap<>();
+
+  private volatile boolean running;
+
+  public LoadGenerator(URI target, List<SyntheticToken> tokens,
+    int concurrency)
+  {
+    this.endpoint = target.resolve("/api/v1/micetro");
+    this.tokens = tokens;
+    this.concurrency = concurrency;
+    this.httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .connectTimeout(Duration.ofSeconds(10))
+      .build();
+    stats.put("add", new OperationStats());
+    stats.put("remove", new OperationStats());
+  }
+
+  public void run(Duration warmup, Duration duration)
+    throws InterruptedException
+  {
+    running = true;
+    try(ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor())
+    {
+      for(int i = 0; i < concurrency; i ++)
+      {
+        int worker = i;
+        workers.execute(() -> work(worker));
+      }
+
+      log.info("warmup for {}", warmup);
+      Thread.sleep(warmup);
+      stats.values().forEach(OperationStats :: reset);
+
+      log.info("measuring for {} with {} workers and {} tokens",
+        duration, concurrency, tokens.size());
+      long start = System.nanoTime();
+      Thread.sleep(duration);
+      stats.values().forEach(s -> s.snapshot(System.nanoTime() - start));
+      running = false;
+    }
+  }
+
+  public void report(PrintStream out)
+  {
+    out.println();
+    out.printf("%-8s %10s %10s %10s %10s %10s %10s  %s%n", "op", "count",
+      "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "status");
+    stats.forEach((operation, s) -> out.printf(
+      "%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f  %s%n",
+      operation, s.histogram.count(),
+      s.histogram.count() / (s.elapsedNanos / 1e9),
+      s.percentileMillis(0.5),
+      s.percentileMillis(0.99),
+      s.percentileMillis(0.999),
+      s.histogram.max(TimeUnit.MILLISECONDS),
+      s.statusSnapshot));
+    out.println();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private void work(int worker)
+  {
+    long iteration = 0;
+    while(running)
+    {
+      SyntheticToken token =
+        tokens.get((int)((worker + iteration * concurrency) % tokens.size()));
+      String name = "_acme-challenge.w" + worker + "-" + iteration;
+      String zoneAndName = "\"zone\":\"" + token.zone() + "\",\"name\":\""
+        + name + "\"";
+
+      send("add", "POST", token,
+        "{" + zoneAndName + ",\"data\":\"loadtest-" + iteration + "\"}");
+      send("remove", "DELETE", token, "{" + zoneAndName + "}");
+      iteration ++;
+    }
+  }
+
+  private void send(String operation, String method, SyntheticToken token,
+    String body)
+  {
+    HttpRequest request = HttpRequest.newBuilder(endpoint)
+      .method(method, HttpRequest.BodyPublishers.ofString(body))
+      .header("Authorization", token.authorizationHeader())
+      .header("Content-Type", "application/json")
+      .timeout(Duration.ofSeconds(60))
+      .build();
+
+    OperationStats operationStats = stats.get(operation);
+    long start = System.nanoTime();
+    int status;
+    try
+    {
+      status = httpClient.send(request,
+        HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      running = false;
+      return;
+    }
+    catch(Exception ex)
+    {
+      log.debug("{} failed: {}", operation, ex.toString());
+      status = 0;
+    }
+    operationStats.record(System.nanoTime() - start, status);
+  }
+
+  /**
+   * Latency and status codes of one operation. A fresh timer is created on
+   * {@link #reset} so the warmup does not leak into the percentiles.
+   */
+  private static class OperationStats
+  {
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    private volatile Timer timer = newTimer();
+
+    private HistogramSnapshot histogram;
+
+    private Map<Integer, Long> statusSnapshot;
+
+    private long elapsedNanos;
+
+    private static Timer newTimer()
+    {
+      return Timer.builder("loadtest.requests")
+        .publishPercentiles(0.5, 0.99, 0.999)
+        .percentilePrecision(3)
+        .distributionStatisticBufferLength(1)
+        .distributionStatisticExpiry(Duration.ofDays(1))
+        .register(new SimpleMeterRegistry());
+    }
+
+    private void record(long nanos, int status)
+    {
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+      statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    private void reset()
+    {
+      timer = newTimer();
+      statuses.clear();
+    }
+
+    private void snapshot(long elapsedNanos)
+    {
+      this.histogram = timer.takeSnapshot();
+      this.elapsedNanos = elapsedNanos;
+      Map<Integer, Long> counts = new TreeMap<>();
+      new ArrayList<>(statuses.entrySet()).forEach(
+        e -> counts.put(e.getKey(), e.getValue().sum()));
+      this.statusSnapshot = counts;
+    }
+
+    private double percentileMillis(double percentile)
+    {
+      for(ValueAtPercentile value : histogram.percentileValues())
+      {
+        if(value.percentile() == percentile)
+        {
+          return value.value(TimeUnit.MILLISECONDS);
+        }
+      }
+      return Double.NaN;
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import l9g.mousetrap.Application;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ *
+ * Capacity and regression runs without network access: starts the Micetro
+ * stub and mousetrap in-process, configures mousetrap with synthetic bearer
+ * tokens and drives it with the {@link LoadGenerator}. With
+ * {@code --target=URL} an already running mousetrap is driven instead (see
+ * {@link MicetroStub#main}).
+ * <p>
+ * {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--tokens=5000"}
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class LoadTest
+{
+  public static void main(String[] args)
+    throws Exception
+  {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    StubSettings stubSettings = options.stubSettings();
+    List<SyntheticToken> tokens =
+      SyntheticToken.generate(options.tokens(), stubSettings.zones());
+
+    if(options.target() != null)
+    {
+      run(options, URI.create(options.target()), tokens);
+      return;
+    }
+
+    try(MicetroStub stub = new MicetroStub(stubSettings))
+    {
+      stub.start();
+
+      List<String> properties = new ArrayList<>(List.of(
+        "--server.port=0",
+        "--management.server.port=0",
+        "--spring.output.ansi.enabled=NEVER",
+        "--logging.level.l9g=WARN",
+        "--bearer-tokens.rate-limit.enabled=false",
+        "--micetro.api-url=" + stub.getUrl(),
+        "--micetro.server=localhost",
+        "--micetro.login-name=loadtest",
+        "--micetro.password=loadtest",
+        "--micetro.session-cache-ttl="
+        + stubSettings.sessionTtl().toSeconds()));
+      tokens.forEach(token -> properties.addAll(token.properties()));
+
+      try(ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(Application.class)
+          .run(properties.toArray(String[] :: new)))
+      {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        run(options, URI.create("http://127.0.0.1:" + port), tokens);
+      }
+
+      log.info("stub calls: {}, records left: {}", stub.getCallCounts(),
+        stub.getRecordCount());
+    }
+  }
+
+  private static void run(LoadTestOptions options, URI target,
+    List<SyntheticToken> tokens)
+    throws InterruptedException
+  {
+    LoadGenerator generator =
+      new LoadGenerator(target, tokens, options.concurrency());
+    generator.run(options.warmup(), options.duration());
+    generator.report(System.out);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ *
+ * Command line options of the load test, given as {@code --key=value}.
+ *
+ * <pre>
+ * --target=URL          mousetrap to drive (default: start one in-process)
+ * --tokens=1000         synthetic bearer tokens
+ * --concurrency=200     virtual-thread workers
+ * --duration=60s        measured run time
+ * --warmup=10s          unmeasured run time before
+ * --zones=10            stub zones
+ * --refs-per-zone=1     stub zone refs per zone
+ * --latency=lognormal:10ms:0.5
+ * --error-rate=0.0      stub failure probability per call
+ * --session-ttl=300s    stub session lifetime
+ * --stub-port=0         stub listen port
+ * </pre>
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record LoadTestOptions(String target, int tokens, int concurrency,
+  Duration duration, Duration warmup, StubSettings stubSettings)
+  {
+
+  public static LoadTestOptions parse(String[] args)
+  {
+    Map<String, String> options = new HashMap<>();
+    for(String arg : args)
+    {
+      if( ! arg.startsWith("--") || arg.indexOf('=') < 0)
+      {
+        throw new IllegalArgumentException("expected --key=value: " + arg);
+      }
+      int eq = arg.indexOf('=');
+      options.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+
+    StubSettings stubSettings = new StubSettings(
+      Integer.parseInt(options.getOrDefault("stub-port", "0")),
+      Integer.parseInt(options.getOrDefault("zones", "10")),
+      Integer.parseInt(options.getOrDefault("refs-per-zone", "1")),
+      LatencyDistribution.parse(
+        options.getOrDefault("latency", "lognormal:10ms:0.5")),
+      Double.parseDouble(options.getOrDefault("error-rate", "0.0")),
+      duration(options.getOrDefault("session-ttl", "300s")));
+
+    return new LoadTestOptions(
+      options.get("target"),
+      Integer.parseInt(options.getOrDefault("tokens", "1000")),
+      Integer.parseInt(options.getOrDefault("concurrency", "200")),
+      duration(options.getOrDefault("duration", "60s")),
+      duration(options.getOrDefault("warmup", "10s")),
+      stubSettings);
+  }
+
+  private static Duration duration(String value)
+  {
+    return DurationStyle.detectAndParse(value);
+  }
+
+}
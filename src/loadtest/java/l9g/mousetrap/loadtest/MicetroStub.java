@@ -0,0 +1,396 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * In-memory stand-in for the Micetro JSON-RPC API. It implements the methods
+ * mousetrap uses ({@code login}, {@code GetDNSZones}, {@code GetDNSRecords},
+ * {@code AddDNSRecord}, {@code RemoveObjects}), single requests as well as
+ * batches, on any path.
+ * <p>
+ * Latency is added once per HTTP exchange. Injected failures and expired
+ * sessions are reported as JSON-RPC errors, like the real server does.
+ * Responses of 1 KiB and more are gzip-compressed when the client asks for
+ * it.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class MicetroStub implements AutoCloseable
+{
+  private static final int GZIP_MIN_SIZE = 1024;
+
+  private final StubSettings settings;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final HttpServer server;
+
+  private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+  private final Map<String, String> zoneNames = new HashMap<>();
+
+  private final Map<String, NavigableMap<String, ObjectNode>> zoneRecords =
+    new HashMap<>();
+
+  private final Map<String, String> recordZones = new ConcurrentHashMap<>();
+
+  private final AtomicLong recordSequence = new AtomicLong();
+
+  private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+
+  public MicetroStub(StubSettings settings)
+    throws IOException
+  {
+    this.settings = settings;
+
+    for(int i = 0; i < settings.zones(); i ++)
+    {
+      for(int j = 0; j < settings.refsPerZone(); j ++)
+      {
+        String ref = "dnsZones/" + i + "-" + j;
+        zoneNames.put(ref, StubSettings.zoneName(i));
+        zoneRecords.put(ref, new ConcurrentSkipListMap<>());
+      }
+    }
+
+    server = HttpServer.create(new InetSocketAddress(
+      InetAddress.getLoopbackAddress(), settings.port()), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/", this :: handle);
+  }
+
+  public void start()
+  {
+    server.start();
+    log.info("Micetro stub listening on {} ({} zones, {} refs each)",
+      getUrl(), settings.zones(), settings.refsPerZone());
+  }
+
+  public String getUrl()
+  {
+    return "http://127.0.0.1:" + server.getAddress().getPort()
+      + "/mmws/json/";
+  }
+
+  /**
+   * Number of calls per method, including failed ones.
+   */
+  public Map<String, Long> getCallCounts()
+  {
+    Map<String, Long> counts = new TreeMap<>();
+    calls.forEach((method, count) -> counts.put(method, count.sum()));
+    return counts;
+  }
+
+  public int getRecordCount()
+  {
+    return recordZones.size();
+  }
+
+  @Override
+  public void close()
+  {
+    server.stop(0);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private void handle(HttpExchange exchange)
+    throws IOException
+  {
+    try(exchange; InputStream in = exchange.getRequestBody())
+    {
+      JsonNode request = objectMapper.readTree(in);
+      sleep(settings.latency().sampleNanos());
+
+      JsonNode response;
+      if(request.isArray())
+      {
+        ArrayNode responses = objectMapper.createArrayNode();
+        request.forEach(call -> responses.add(dispatch(call)));
+        response = responses;
+      }
+      else
+      {
+        response = dispatch(request);
+      }
+
+      byte[] body = objectMapper.writeValueAsBytes(response);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      if(body.length >= GZIP_MIN_SIZE && acceptsGzip(exchange))
+      {
+        body = gzip(body);
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try(OutputStream out = exchange.getResponseBody())
+      {
+        out.write(body);
+      }
+    }
+    catch(IOException | RuntimeException ex)
+    {
+      log.warn("stub request failed: {}", ex.toString());
+      throw ex;
+    }
+  }
+
+  private ObjectNode dispatch(JsonNode call)
+  {
+    String method = call.path("method").asText();
+    JsonNode params = call.path("params");
+    calls.computeIfAbsent(method, m -> new LongAdder()).increment();
+
+    ObjectNode response = objectMapper.createObjectNode();
+    response.put("jsonrpc", "2.0");
+    response.set("id", call.get("id"));
+
+    if( ! "login".equals(method))
+    {
+      if( ! validSession(params.path("session").asText(null)))
+      {
+        return error(response, StubSettings.INVALID_SESSION,
+          "Invalid or expired session");
+      }
+      if(ThreadLocalRandom.current().nextDouble() < settings.errorRate())
+      {
+        return error(response, StubSettings.SIMULATED_FAILURE,
+          "Simulated failure");
+      }
+    }
+
+    return switch(method)
+    {
+      case "login" -> login(response);
+      case "GetDNSZones" -> getDnsZones(response, params);
+      case "GetDNSRecords" -> getDnsRecords(response, params);
+      case "AddDNSRecord" -> addDnsRecord(response, params);
+      case "RemoveObjects" -> removeObjects(response, params);
+      default -> error(response, -32601, "Method not found: " + method);
+    };
+  }
+
+  private boolean validSession(String session)
+  {
+    if(session == null)
+    {
+      return false;
+    }
+    Long expires = sessions.get(session);
+    if(expires == null || expires < System.nanoTime())
+    {
+      sessions.remove(session);
+      return false;
+    }
+    return true;
+  }
+
+  private ObjectNode login(ObjectNode response)
+  {
+    String session = UUID.randomUUID().toString();
+    sessions.put(session,
+      System.nanoTime() + settings.sessionTtl().toNanos());
+    response.putObject("result").put("session", session);
+    return response;
+  }
+
+  private ObjectNode getDnsZones(ObjectNode response, JsonNode params)
+  {
+    String name = filter(params.path("filter").asText()).get("name");
+    List<String> refs = zoneNames.entrySet().stream()
+      .filter(e -> name == null || e.getValue().equalsIgnoreCase(name))
+      .map(Map.Entry :: getKey)
+      .sorted()
+      .toList();
+
+    ObjectNode result = response.putObject("result");
+    ArrayNode zones = result.putArray("dnsZones");
+    page(refs, params).forEach(ref -> zones.addObject()
+      .put("ref", ref)
+      .put("name", zoneNames.get(ref))
+      .put("type", "Master"));
+    result.put("totalResults", refs.size());
+    return response;
+  }
+
+  private ObjectNode getDnsRecords(ObjectNode response, JsonNode params)
+  {
+    NavigableMap<String, ObjectNode> records =
+      zoneRecords.get(params.path("dnsZoneRef").asText());
+    if(records == null)
+    {
+      return error(response, -32602, "Unknown zone reference");
+    }
+
+    Map<String, String> filter = filter(params.path("filter").asText());
+    List<ObjectNode> matches = records.values().stream()
+      .filter(record -> filter.entrySet().stream().allMatch(
+        f -> f.getValue().equalsIgnoreCase(record.path(f.getKey()).asText())))
+      .toList();
+
+    ObjectNode result = response.putObject("result");
+    result.putArray("dnsRecords").addAll(page(matches, params));
+    result.put("totalResults", matches.size());
+    return response;
+  }
+
+  private ObjectNode addDnsRecord(ObjectNode response, JsonNode params)
+  {
+    JsonNode dnsRecord = params.path("dnsRecord");
+    String zoneRef = dnsRecord.path("dnsZoneRef").asText();
+    NavigableMap<String, ObjectNode> records = zoneRecords.get(zoneRef);
+    if(records == null)
+    {
+      return error(response, -32602, "Unknown zone reference");
+    }
+
+    String ref = String.format("dnsRecords/%012d",
+      recordSequence.incrementAndGet());
+    ObjectNode record = dnsRecord.deepCopy();
+    record.put("ref", ref);
+    records.put(ref, record);
+    recordZones.put(ref, zoneRef);
+
+    response.putObject("result").put("ref", ref);
+    return response;
+  }
+
+  private ObjectNode removeObjects(ObjectNode response, JsonNode params)
+  {
+    for(JsonNode ref : params.path("objRefs"))
+    {
+      String zoneRef = recordZones.remove(ref.asText());
+      if(zoneRef != null)
+      {
+        zoneRecords.get(zoneRef).remove(ref.asText());
+      }
+    }
+    response.putObject("result");
+    return response;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static boolean acceptsGzip(HttpExchange exchange)
+  {
+    String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    return accept != null && accept.toLowerCase().contains("gzip");
+  }
+
+  private static byte[] gzip(byte[] body)
+    throws IOException
+  {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+    try(GZIPOutputStream out = new GZIPOutputStream(buffer))
+    {
+      out.write(body);
+    }
+    return buffer.toByteArray();
+  }
+
+  private static ObjectNode error(ObjectNode response, int code, String message)
+  {
+    response.putObject("error").put("code", code).put("message", message);
+    return response;
+  }
+
+  /**
+   * Parses a Micetro filter of the form {@code key=value key=value}.
+   */
+  private static Map<String, String> filter(String filter)
+  {
+    Map<String, String> terms = new HashMap<>();
+    for(String term : filter.trim().split("\\s+"))
+    {
+      int eq = term.indexOf('=');
+      if(eq > 0)
+      {
+        terms.put(term.substring(0, eq), term.substring(eq + 1));
+      }
+    }
+    return terms;
+  }
+
+  private static <T> List<T> page(List<T> items, JsonNode params)
+  {
+    int offset = Math.min(params.path("offset").asInt(0), items.size());
+    int limit = params.path("limit").asInt(Integer.MAX_VALUE);
+    return items.subList(offset,
+      (int)Math.min((long)offset + limit, items.size()));
+  }
+
+  private static void sleep(long nanos)
+  {
+    if(nanos > 0)
+    {
+      try
+      {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+      }
+      catch(InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Runs the stub on its own, e.g. for a mousetrap started from the IDE.
+   * Arguments as for {@link LoadTest}.
+   */
+  public static void main(String[] args)
+    throws Exception
+  {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    MicetroStub stub = new MicetroStub(options.stubSettings());
+    stub.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(stub :: close));
+    Thread.currentThread().join();
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.time.Duration;
+
+/**
+ *
+ * Behaviour of the Micetro stub.
+ *
+ * @param port listen port, 0 for an ephemeral port
+ * @param zones number of primary zones {@code zone<i>.loadtest.example.}
+ * @param refsPerZone zone refs per zone name, e.g. one per DNS server
+ * @param latency latency added to every HTTP exchange
+ * @param errorRate probability that a call (other than {@code login}) fails
+ * @param sessionTtl lifetime of a session, after which calls fail with the
+ * invalid-session error code
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record StubSettings(int port, int zones, int refsPerZone,
+  LatencyDistribution latency, double errorRate, Duration sessionTtl)
+  {
+
+  public static final int INVALID_SESSION = 18;
+
+  public static final int SIMULATED_FAILURE = 1;
+
+  public static String zoneName(int i)
+  {
+    return "zone" + i + ".loadtest.example.";
+  }
+
+}
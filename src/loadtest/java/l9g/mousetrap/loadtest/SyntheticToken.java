@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ *
+ * A generated bearer token permitted to use one stub zone.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record SyntheticToken(String name, String value, String zone)
+  {
+
+  public static List<SyntheticToken> generate(int count, int zones)
+  {
+    List<SyntheticToken> tokens = new ArrayList<>(count);
+    for(int i = 0; i < count; i ++)
+    {
+      tokens.add(new SyntheticToken("loadtest-" + i,
+        "loadtest-token-value-" + i, StubSettings.zoneName(i % zones)));
+    }
+    return tokens;
+  }
+
+  public String authorizationHeader()
+  {
+    return "Bearer " + Base64.getEncoder().encodeToString(
+      value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * The token as {@code bearer-tokens.map.*} command line properties.
+   */
+  public List<String> properties()
+  {
+    String prefix = "--bearer-tokens.map." + name + ".";
+    return List.of(
+      prefix + "token=" + value,
+      prefix + "owner=" + name,
+      prefix + "description=load test token",
+      prefix + "enabled=true",
+      prefix + "permitted-zones[0]=" + zone);
+  }
+
+}
@@ -15,25 +15,26 @@
  */
 package l9g.mousetrap.config;
 
-import l9g.mousetrap.token.BearerTokenConfig;
+import l9g.mousetrap.jfr.SecurityRejectionEvent;
+import l9g.mousetrap.token.BearerTokenRegistry;
+import l9g.mousetrap.token.BearerTokenRegistry.RegisteredToken;
+import l9g.mousetrap.token.TokenRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
@@ -57,7 +58,11 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 @Slf4j
 public class SecurityConfig
 {
-  private final BearerTokenConfig bearerTokenConfig;
+  private final BearerTokenRegistry bearerTokenRegistry;
+
+  private final TokenRateLimiter tokenRateLimiter;
+
+  private final MeterRegistry meterRegistry;
 
   @Bean
   public AuthenticationEntryPoint authenticationEntryPoint(
@@ -104,11 +109,12 @@ public class SecurityConfig
       .authenticationEntryPoint(authenticationEntryPoint)
     );
 
-    http.addFilterBefore(new StaticBearerTokenFilter(bearerTokenConfig),
+    http.addFilterBefore(new StaticBearerTokenFilter(bearerTokenRegistry,
+      tokenRateLimiter, meterRegistry),
       AbstractPreAuthenticatedProcessingFilter.class);
 
     http.authorizeHttpRequests(auth -> auth
-      .requestMatchers("/api/v1/micetro").authenticated()
+      .requestMatchers("/api/v1/micetro", "/api/v1/micetro/**").authenticated()
       .anyRequest().permitAll()
     );
 
@@ -119,25 +125,46 @@ public class SecurityConfig
    * A filter that authenticates requests based on a static Bearer Token.
    * <p>
    * This filter extracts a token from the {@code Authorization: Bearer} header,
-   * looks it up in a pre-configured map of known tokens, and if found and
-   * valid, creates an {@link Authentication} object and places it in the
-   * {@link SecurityContextHolder}.
+   * looks up the digest of its Base64 value in the current
+   * {@link BearerTokenRegistry} snapshot, and if found and valid, places the
+   * token's {@link Authentication} object in the {@link SecurityContextHolder}.
+   * The secret is neither decoded nor compared as a {@code String}. Requests
+   * over the token's rate limit are answered with {@code 429} and a
+   * {@code Retry-After} header before they reach any controller.
    */
   static class StaticBearerTokenFilter extends OncePerRequestFilter
   {
-    private final Map<String, BearerTokenConfig.BearerToken> tokensByName;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final BearerTokenRegistry tokenRegistry;
+
+    private final TokenRateLimiter rateLimiter;
 
-    private final Map<String, String> tokenIndex;
+    private final Counter disabledTokens;
 
-    StaticBearerTokenFilter(BearerTokenConfig config)
+    StaticBearerTokenFilter(BearerTokenRegistry tokenRegistry,
+      TokenRateLimiter rateLimiter, MeterRegistry meterRegistry)
     {
-      this.tokensByName = config.getMap();
-      this.tokenIndex = tokensByName.entrySet().stream()
-        .collect(java.util.stream.Collectors.toUnmodifiableMap(
-          e -> e.getValue().getToken(),
-          Map.Entry :: getKey,
-          (a, b) -> a
-        ));
+      this.rateLimiter = rateLimiter;
+      this.disabledTokens = meterRegistry.counter(
+        "mousetrap.requests.rejected", "operation", "authenticate",
+        "reason", "disabled_token");
+      this.tokenRegistry = tokenRegistry;
+    }
+
+    private static void rejected(
+      HttpServletRequest request, String reason, String token)
+    {
+      SecurityRejectionEvent event = new SecurityRejectionEvent();
+      if(event.shouldCommit())
+      {
+        event.reason = reason;
+        event.token = token;
+        event.remoteAddress = request.getRemoteAddr();
+        event.commit();
+      }
     }
 
     @Override
@@ -150,42 +177,41 @@ public class SecurityConfig
 
       log.trace("auth = {}", auth);
       
-      if(auth == null ||  ! auth.startsWith("Bearer "))
+      if(auth == null ||  ! auth.startsWith(BEARER_PREFIX))
       {
         chain.doFilter(request, response);
         return;
       }
 
-      String token = new String(
-        Base64.getDecoder().decode(auth.substring("Bearer ".length()).trim()),
-        StandardCharsets.UTF_8
-      );
-
-      if(token.isEmpty())
+      RegisteredToken registered =
+        tokenRegistry.findByEncodedSecret(auth, BEARER_PREFIX.length());
+      if(registered == null)
       {
+        rejected(request, "unknown_token", null);
         chain.doFilter(request, response);
         return;
       }
 
-      String name = tokenIndex.get(token);
-      if(name == null)
+      if( ! registered.token().isEnabled())
       {
+        disabledTokens.increment();
+        rejected(request, "disabled_token", registered.name());
         chain.doFilter(request, response);
         return;
       }
 
-      BearerTokenConfig.BearerToken bt = tokensByName.get(name);
-      if(bt == null ||  ! bt.isEnabled())
+      long waitNanos = rateLimiter.tryAcquire(registered);
+      if(waitNanos > 0)
       {
-        chain.doFilter(request, response);
+        log.debug("rate limit exceeded for '{}'", registered.name());
+        rejected(request, "rate_limited", registered.name());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(
+          Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND)));
         return;
       }
 
-      Authentication authToken = new StaticBearerAuthenticationToken(
-        name,
-        bt.getOwner(),
-        AuthorityUtils.NO_AUTHORITIES
-      );
+      Authentication authToken = registered.authentication();
       SecurityContextHolder.getContext().setAuthentication(authToken);
 
       try
@@ -200,45 +226,4 @@ public class SecurityConfig
 
   }
 
-  /**
-   * A custom {@link Authentication} token representing a successfully
-   * authenticated client via a static Bearer token.
-   * <p>
-   * It holds the principal (the token's name) and details (the token's owner).
-   */
-  static class StaticBearerAuthenticationToken extends AbstractAuthenticationToken
-  {
-    private final String principalName;
-
-    private final String owner;
-
-    StaticBearerAuthenticationToken(String principalName, String owner,
-      java.util.Collection authorities)
-    {
-      super(authorities);
-      this.principalName = principalName;
-      this.owner = owner;
-      setAuthenticated(true);
-    }
-
-    @Override
-    public Object getCredentials()
-    {
-      return ""; // kein Geheimnis mehr speichern
-    }
-
-    @Override
-    public Object getPrincipal()
-    {
-      return principalName;
-    }
-
-    @Override
-    public Object getDetails()
-    {
-      return owner;
-    }
-
-  }
-
 }
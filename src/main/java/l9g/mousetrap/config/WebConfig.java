@@ -15,10 +15,8 @@
  */
 package l9g.mousetrap.config;
 
-import l9g.mousetrap.token.BearerTokenConfig;
 import java.util.List;
 import l9g.mousetrap.token.BearerTokenArgumentResolver;
-import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -28,15 +26,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * @author Thorsten Ludewig (t.ludewig@gmail.com)
  */
 @Configuration
-@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer
 {
-  private final BearerTokenConfig tokenConfig;
-
   @Override
   public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers)
   {
-    resolvers.add(new BearerTokenArgumentResolver(tokenConfig));
+    resolvers.add(new BearerTokenArgumentResolver());
   }
 
 }
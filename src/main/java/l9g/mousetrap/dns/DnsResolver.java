@@ -0,0 +1,356 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.dns;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Minimal non-blocking DNS client over UDP.
+ * <p>
+ * All queries share a single selector thread, so polling many nameservers
+ * does not tie up a thread per query. Only what propagation checks need is
+ * implemented: {@code TXT} and {@code NS} lookups, with or without the
+ * recursion-desired flag. Truncated responses are not retried over TCP.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+public class DnsResolver
+{
+  public static final int TYPE_NS = 2;
+
+  public static final int TYPE_TXT = 16;
+
+  private static final int CLASS_IN = 1;
+
+  private static final int MAX_PACKET_SIZE = 4096;
+
+  private final Selector selector;
+
+  private final Queue<Query> registrations = new ConcurrentLinkedQueue<>();
+
+  private final long timeoutNanos;
+
+  private volatile boolean running = true;
+
+  private static final class Query
+  {
+    private final DatagramChannel channel;
+
+    private final int id;
+
+    private final int type;
+
+    private final long deadline;
+
+    private final CompletableFuture<List<String>> future =
+      new CompletableFuture<>();
+
+    private Query(DatagramChannel channel, int id, int type, long deadline)
+    {
+      this.channel = channel;
+      this.id = id;
+      this.type = type;
+      this.deadline = deadline;
+    }
+  }
+
+  public DnsResolver(PropagationConfig config)
+  {
+    this.timeoutNanos =
+      TimeUnit.MILLISECONDS.toNanos(config.getQueryTimeoutMillis());
+    try
+    {
+      this.selector = Selector.open();
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+    Thread.ofPlatform().daemon().name("dns-resolver").start(this :: loop);
+  }
+
+  @PreDestroy
+  void shutdown()
+  {
+    running = false;
+    selector.wakeup();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Sends a query and completes with the decoded answers: the joined
+   * character strings of every {@code TXT} record or the target names of
+   * every {@code NS} record. NXDOMAIN and empty answers complete with an
+   * empty list.
+   */
+  public CompletableFuture<List<String>> query(
+    InetSocketAddress server, String name, int type, boolean recursive)
+  {
+    try
+    {
+      DatagramChannel channel = DatagramChannel.open();
+      channel.configureBlocking(false);
+      channel.connect(server);
+
+      Query query = new Query(channel,
+        ThreadLocalRandom.current().nextInt(0x10000), type,
+        System.nanoTime() + timeoutNanos);
+      channel.write(ByteBuffer.wrap(encode(query.id, name, type, recursive)));
+
+      registrations.add(query);
+      selector.wakeup();
+      return query.future;
+    }
+    catch(IOException ex)
+    {
+      return CompletableFuture.failedFuture(ex);
+    }
+  }
+
+  private void loop()
+  {
+    ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET_SIZE);
+
+    while(running)
+    {
+      try
+      {
+        selector.select(100);
+
+        Query query;
+        while((query = registrations.poll()) != null)
+        {
+          query.channel.register(selector, SelectionKey.OP_READ, query);
+        }
+
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while(selected.hasNext())
+        {
+          SelectionKey key = selected.next();
+          selected.remove();
+          receive(key, buffer);
+        }
+
+        long now = System.nanoTime();
+        for(SelectionKey key : selector.keys())
+        {
+          Query pending = (Query)key.attachment();
+          if(pending != null && now - pending.deadline > 0)
+          {
+            finish(key, null, new SocketTimeoutException(
+              "no answer from " + pending.channel.getRemoteAddress()));
+          }
+        }
+      }
+      catch(IOException ex)
+      {
+        log.warn("dns resolver: {}", ex.getMessage());
+      }
+    }
+  }
+
+  private void receive(SelectionKey key, ByteBuffer buffer)
+  {
+    Query query = (Query)key.attachment();
+    try
+    {
+      buffer.clear();
+      if(query.channel.read(buffer) <= 0)
+      {
+        return;
+      }
+      buffer.flip();
+
+      if(buffer.remaining() < 12 || (buffer.getShort(0) & 0xffff) != query.id)
+      {
+        // stray or spoofed packet, keep waiting for the real answer
+        return;
+      }
+      finish(key, decode(buffer, query.type), null);
+    }
+    catch(IOException | RuntimeException ex)
+    {
+      finish(key, null, ex);
+    }
+  }
+
+  private static void finish(
+    SelectionKey key, List<String> answers, Throwable failure)
+  {
+    Query query = (Query)key.attachment();
+    key.cancel();
+    try
+    {
+      query.channel.close();
+    }
+    catch(IOException ex)
+    {
+      // nothing left to do
+    }
+
+    if(failure != null)
+    {
+      query.future.completeExceptionally(failure);
+    }
+    else
+    {
+      query.future.complete(answers);
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  static byte[] encode(int id, String name, int type, boolean recursive)
+  {
+    ByteBuffer packet = ByteBuffer.allocate(512);
+    packet.putShort((short)id);
+    packet.putShort((short)(recursive ? 0x0100 : 0));
+    packet.putShort((short)1).putShort((short)0)
+      .putShort((short)0).putShort((short)0);
+
+    for(String label : name.split("\\."))
+    {
+      if( ! label.isEmpty())
+      {
+        byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+        packet.put((byte)bytes.length).put(bytes);
+      }
+    }
+    packet.put((byte)0);
+    packet.putShort((short)type).putShort((short)CLASS_IN);
+
+    byte[] result = new byte[packet.position()];
+    packet.flip().get(result);
+    return result;
+  }
+
+  static List<String> decode(ByteBuffer packet, int type)
+  {
+    List<String> answers = new ArrayList<>();
+    int flags = packet.getShort(2) & 0xffff;
+    int rcode = flags & 0x000f;
+    if(rcode != 0)
+    {
+      return answers;
+    }
+
+    int questions = packet.getShort(4) & 0xffff;
+    int records = packet.getShort(6) & 0xffff;
+    int offset = 12;
+
+    for(int i = 0; i < questions; i++)
+    {
+      offset = skipName(packet, offset) + 4;
+    }
+
+    for(int i = 0; i < records; i++)
+    {
+      offset = skipName(packet, offset);
+      int rrType = packet.getShort(offset) & 0xffff;
+      int length = packet.getShort(offset + 8) & 0xffff;
+      int rdata = offset + 10;
+
+      if(rrType == type && type == TYPE_TXT)
+      {
+        StringBuilder text = new StringBuilder();
+        int pos = rdata;
+        while(pos < rdata + length)
+        {
+          int len = packet.get(pos) & 0xff;
+          byte[] chunk = new byte[len];
+          packet.get(pos + 1, chunk);
+          text.append(new String(chunk, StandardCharsets.UTF_8));
+          pos += 1 + len;
+        }
+        answers.add(text.toString());
+      }
+      else if(rrType == type && type == TYPE_NS)
+      {
+        answers.add(readName(packet, rdata));
+      }
+
+      offset = rdata + length;
+    }
+
+    return answers;
+  }
+
+  private static int skipName(ByteBuffer packet, int offset)
+  {
+    while(true)
+    {
+      int len = packet.get(offset) & 0xff;
+      if(len == 0)
+      {
+        return offset + 1;
+      }
+      if((len & 0xc0) == 0xc0)
+      {
+        return offset + 2;
+      }
+      offset += 1 + len;
+    }
+  }
+
+  private static String readName(ByteBuffer packet, int offset)
+  {
+    StringBuilder name = new StringBuilder();
+    // bounded number of jumps guards against compression loops
+    for(int jumps = 0; jumps < 64;)
+    {
+      int len = packet.get(offset) & 0xff;
+      if(len == 0)
+      {
+        break;
+      }
+      if((len & 0xc0) == 0xc0)
+      {
+        offset = ((len & 0x3f) << 8) | (packet.get(offset + 1) & 0xff);
+        jumps++;
+        continue;
+      }
+      byte[] label = new byte[len];
+      packet.get(offset + 1, label);
+      name.append(new String(label, StandardCharsets.US_ASCII)).append('.');
+      offset += 1 + len;
+    }
+    return name.toString();
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.dns;
+
+import java.util.List;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ *
+ * Settings for {@code wait=propagated}: how the authoritative nameservers of
+ * a zone are found and how often they are polled.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "propagation")
+@Data
+@ToString
+public class PropagationConfig
+{
+  /**
+   * Recursive resolver ({@code host[:port]}) used to look up the NS records
+   * of a zone. Defaults to the first nameserver in /etc/resolv.conf.
+   */
+  private String resolver;
+
+  /**
+   * Fixed list of nameservers ({@code host[:port]}) to poll instead of the
+   * NS records of the zone.
+   */
+  private List<String> nameservers = List.of();
+
+  private long timeoutSeconds = 300;
+
+  private long queryTimeoutMillis = 2000;
+
+  private long initialBackoffMillis = 500;
+
+  private long maxBackoffMillis = 10000;
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.dns;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ *
+ * Outcome of waiting for a TXT record on the authoritative nameservers.
+ *
+ * @param propagated {@code true} if every nameserver answered with the value
+ * @param elapsed time from the start of polling until the last nameserver
+ * answered with the value, or until the deadline passed
+ * @param pending nameservers that did not answer with the value in time
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record PropagationResult(
+  boolean propagated, Duration elapsed, List<String> pending)
+  {
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.dns;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ *
+ * Waits until a TXT record is visible on all authoritative nameservers of a
+ * zone.
+ * <p>
+ * Every nameserver is polled independently with a growing backoff, without
+ * recursion, so the answers come straight from the nameserver and not from a
+ * cache.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Service
+public class PropagationService
+{
+  private static final int DNS_PORT = 53;
+
+  private final DnsResolver resolver;
+
+  private final PropagationConfig config;
+
+  public PropagationService(DnsResolver resolver, PropagationConfig config)
+  {
+    this.resolver = resolver;
+    this.config = config;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static InetSocketAddress parseAddress(String hostAndPort)
+  {
+    String host = hostAndPort;
+    int port = DNS_PORT;
+    int colon = hostAndPort.lastIndexOf(':');
+    if(colon > 0 && hostAndPort.indexOf(':') == colon)
+    {
+      host = hostAndPort.substring(0, colon);
+      port = Integer.parseInt(hostAndPort.substring(colon + 1));
+    }
+    return new InetSocketAddress(host, port);
+  }
+
+  private InetSocketAddress recursiveResolver()
+    throws IOException
+  {
+    if(config.getResolver() != null &&  ! config.getResolver().isBlank())
+    {
+      return parseAddress(config.getResolver());
+    }
+
+    for(String line : Files.readAllLines(Path.of("/etc/resolv.conf")))
+    {
+      String[] fields = line.trim().split("\\s+");
+      if(fields.length >= 2 && "nameserver".equals(fields[0]))
+      {
+        return new InetSocketAddress(fields[1], DNS_PORT);
+      }
+    }
+    throw new IOException("no recursive resolver configured");
+  }
+
+  private Map<String, InetSocketAddress> nameservers(String zone)
+    throws IOException, InterruptedException, ExecutionException
+  {
+    Map<String, InetSocketAddress> servers = new LinkedHashMap<>();
+
+    if( ! config.getNameservers().isEmpty())
+    {
+      config.getNameservers().forEach(
+        ns -> servers.put(ns, parseAddress(ns)));
+      return servers;
+    }
+
+    List<String> names = resolver.query(
+      recursiveResolver(), zone, DnsResolver.TYPE_NS, true).get();
+
+    for(String name : names)
+    {
+      try
+      {
+        for(InetAddress address : InetAddress.getAllByName(name))
+        {
+          servers.put(name + "/" + address.getHostAddress(),
+            new InetSocketAddress(address, DNS_PORT));
+        }
+      }
+      catch(UnknownHostException ex)
+      {
+        log.warn("can not resolve nameserver {}", name);
+      }
+    }
+    return servers;
+  }
+
+  private CompletableFuture<Boolean> poll(InetSocketAddress server,
+    String fqdn, String data, long backoffMillis, long deadline)
+  {
+    return resolver.query(server, fqdn, DnsResolver.TYPE_TXT, false)
+      .handle((values, ex) -> values != null && values.contains(data))
+      .thenCompose(visible ->
+      {
+        if(visible)
+        {
+          return CompletableFuture.completedFuture(true);
+        }
+
+        long remaining = TimeUnit.NANOSECONDS.toMillis(
+          deadline - System.nanoTime());
+        if(remaining <= 0)
+        {
+          return CompletableFuture.completedFuture(false);
+        }
+
+        long delay = Math.min(backoffMillis, remaining);
+        Executor later =
+          CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+        return CompletableFuture.runAsync(() ->
+        {
+        }, later).thenCompose(_void -> poll(server, fqdn, data,
+          Math.min(backoffMillis * 3 / 2, config.getMaxBackoffMillis()),
+          deadline));
+      });
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Blocks until {@code data} is visible as TXT value of {@code fqdn} on every
+   * authoritative nameserver of {@code zone} or the configured timeout
+   * passed.
+   */
+  public PropagationResult awaitPropagation(
+    String zone, String fqdn, String data)
+  {
+    long start = System.nanoTime();
+    long deadline =
+      start + TimeUnit.SECONDS.toNanos(config.getTimeoutSeconds());
+
+    try
+    {
+      Map<String, InetSocketAddress> servers = nameservers(zone);
+      if(servers.isEmpty())
+      {
+        log.warn("no authoritative nameservers found for zone {}", zone);
+        return new PropagationResult(false, Duration.ZERO, List.of());
+      }
+
+      Map<String, CompletableFuture<Boolean>> polls = new LinkedHashMap<>();
+      servers.forEach((name, address) -> polls.put(name,
+        poll(address, fqdn, data, config.getInitialBackoffMillis(), deadline)));
+
+      CompletableFuture.allOf(polls.values().toArray(CompletableFuture[] :: new))
+        .get(config.getTimeoutSeconds() + 5, TimeUnit.SECONDS);
+
+      List<String> pending = new ArrayList<>();
+      polls.forEach((name, poll) ->
+      {
+        if( ! poll.join())
+        {
+          pending.add(name);
+        }
+      });
+
+      Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+      log.debug("propagation of {} after {}ms, pending={}",
+        fqdn, elapsed.toMillis(), pending);
+      return new PropagationResult(pending.isEmpty(), elapsed, pending);
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      return new PropagationResult(false,
+        Duration.ofNanos(System.nanoTime() - start), List.of());
+    }
+    catch(IOException | ExecutionException | TimeoutException ex)
+    {
+      log.warn("propagation check for {} failed: {}", fqdn, ex.getMessage());
+      return new PropagationResult(false,
+        Duration.ofNanos(System.nanoTime() - start), List.of());
+    }
+  }
+
+}
@@ -15,8 +15,13 @@
  */
 package l9g.mousetrap.handler;
 
+import l9g.mousetrap.micetro.MicetroSaturatedException;
+import l9g.mousetrap.micetro.MicetroController;
+import l9g.mousetrap.micetro.ZoneNotFoundException;
+import l9g.mousetrap.micetro.ZoneRefsFailedException;
 import l9g.mousetrap.token.MissingOrInvalidTokenException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -69,4 +74,75 @@ public class GlobalExceptionHandler
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
   }
 
+  /**
+   * Handles requests for a zone that is unknown to Micetro.
+   *
+   * @param ex The caught {@link ZoneNotFoundException}.
+   *
+   * @return A {@link ResponseEntity} with HTTP status 404 (Not Found).
+   */
+  @ExceptionHandler(ZoneNotFoundException.class)
+  public ResponseEntity handleZoneNotFound(ZoneNotFoundException ex)
+  {
+    log.warn("{}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+  }
+
+  /**
+   * Handles calls rejected because Micetro is saturated.
+   *
+   * @param ex The caught {@link MicetroSaturatedException}.
+   *
+   * @return A {@link ResponseEntity} with HTTP status 503 (Service
+   * Unavailable) and a {@code Retry-After} header.
+   */
+  @ExceptionHandler(MicetroSaturatedException.class)
+  public ResponseEntity handleMicetroSaturated(MicetroSaturatedException ex)
+  {
+    log.warn("{}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER,
+        Long.toString(ex.getRetryAfterSeconds()))
+      .build();
+  }
+
+  /**
+   * Handles a change that failed on some zone refs of a zone.
+   *
+   * @param ex The caught {@link ZoneRefsFailedException}.
+   *
+   * @return A {@link ResponseEntity} with HTTP status 503 (Service
+   * Unavailable) if Micetro was saturated, 504 (Gateway Timeout) if the
+   * request deadline passed and 502 (Bad Gateway) otherwise. The zone refs
+   * that were changed are listed in the {@code X-Zone-Refs} header and,
+   * together with the failed ones, in the body.
+   */
+  @ExceptionHandler(ZoneRefsFailedException.class)
+  public ResponseEntity<String> handleZoneRefsFailed(
+    ZoneRefsFailedException ex)
+  {
+    log.warn("{}, succeeded={}, failed={}", ex.getMessage(),
+      ex.getSucceeded(), ex.getFailed());
+
+    ResponseEntity.BodyBuilder response;
+    if(ex.getCause() instanceof MicetroSaturatedException saturated)
+    {
+      response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER,
+          Long.toString(saturated.getRetryAfterSeconds()));
+    }
+    else
+    {
+      response = ResponseEntity.status(ex.isTimedOut()
+        ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY);
+    }
+
+    return response
+      .header(MicetroController.ZONE_REFS_HEADER,
+        String.join(", ", ex.getSucceeded()))
+      .body("FAILED " + ex.getCause().getMessage()
+        + "\nsucceeded: " + String.join(", ", ex.getSucceeded())
+        + "\nfailed: " + String.join(", ", ex.getFailed()) + "\n");
+  }
+
 }
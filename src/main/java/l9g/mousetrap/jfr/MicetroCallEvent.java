@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * One JSON-RPC call or batch sent to Micetro.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Name("l9g.mousetrap.MicetroCall")
+@Label("Micetro Call")
+@Category({ "Mousetrap", "Micetro" })
+@Description("A JSON-RPC call to Micetro, including limiter wait and retries")
+@StackTrace(false)
+public class MicetroCallEvent extends Event
+{
+  @Label("Backend")
+  public String backend;
+
+  @Label("Method")
+  public String method;
+
+  @Label("Request Id")
+  public int requestId;
+
+  @Label("Response Size")
+  @Description("-1 if the call was answered as part of a coalesced batch")
+  @DataAmount
+  public long responseBytes;
+
+  @Label("Outcome")
+  public String outcome;
+}
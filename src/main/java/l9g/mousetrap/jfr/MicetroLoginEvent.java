@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * A login to Micetro that created a new session.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Name("l9g.mousetrap.MicetroLogin")
+@Label("Micetro Login")
+@Category({ "Mousetrap", "Micetro" })
+@Description("A login call that created a new Micetro session")
+@StackTrace(false)
+public class MicetroLoginEvent extends Event
+{
+  @Label("Backend")
+  public String backend;
+
+  @Label("Success")
+  public boolean success;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * A bearer token turned away by the security filter.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Name("l9g.mousetrap.SecurityRejection")
+@Label("Security Rejection")
+@Category({ "Mousetrap", "Security" })
+@Description("A bearer token rejected by the security filter")
+@StackTrace(false)
+public class SecurityRejectionEvent extends Event
+{
+  @Label("Reason")
+  @Description("unknown_token, disabled_token or rate_limited")
+  public String reason;
+
+  @Label("Token")
+  @Description("Name of the token, empty for unknown tokens")
+  public String token;
+
+  @Label("Remote Address")
+  public String remoteAddress;
+}
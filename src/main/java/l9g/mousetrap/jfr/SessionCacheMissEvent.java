@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * A request that found no valid Micetro session and had to wait for one.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Name("l9g.mousetrap.SessionCacheMiss")
+@Label("Session Cache Miss")
+@Category({ "Mousetrap", "Micetro" })
+@Description("A request without a valid session, waiting for a login")
+@StackTrace(false)
+public class SessionCacheMissEvent extends Event
+{
+  @Label("Backend")
+  public String backend;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * A GetDNSZones lookup of the zone refs of a zone, run on a zone cache miss
+ * or refresh.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Name("l9g.mousetrap.ZoneLookup")
+@Label("Zone Lookup")
+@Category({ "Mousetrap", "Micetro" })
+@Description("Lookup of the zone refs of a zone on a zone cache miss")
+@StackTrace(false)
+public class ZoneLookupEvent extends Event
+{
+  @Label("Backend")
+  public String backend;
+
+  @Label("Zone")
+  public String zone;
+
+  @Label("Zone Refs")
+  public int zoneRefs;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+
+/**
+ *
+ * Reads the {@code result} member of a JSON-RPC response straight from the
+ * token stream.
+ * <p>
+ * The parser is positioned on the first token of the result value. An
+ * extractor must consume exactly that value, i.e. leave the parser on its
+ * last token.
+ *
+ * @param <R> the extracted type
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@FunctionalInterface
+public interface ResultExtractor<R>
+{
+  R extract(JsonParser parser)
+    throws IOException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+/**
+ *
+ * Result line for one entry of a bulk challenge request, streamed back as
+ * NDJSON.
+ *
+ * @param index position of the entry in the request
+ * @param status {@code ok}, {@code bad_request}, {@code forbidden},
+ * {@code not_found} or {@code error}
+ * @param records number of TXT records added or removed
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record BatchEntryResult(int index, String zone, String name,
+  String status, int records, String message)
+  {
+
+  public static BatchEntryResult ok(int index, BatchEntry entry, int records)
+  {
+    return new BatchEntryResult(index, entry.zone(), entry.name(), "ok",
+      records, null);
+  }
+
+  public static BatchEntryResult failed(
+    int index, BatchEntry entry, String status, String message)
+  {
+    return new BatchEntryResult(index, entry.zone(), entry.name(), status, 0,
+      message);
+  }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+/**
+ *
+ * Outcome of one call within a JSON-RPC batch: either a result or the error
+ * Micetro returned for that call.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record BatchResult<R>(R result, MicetroApiException error)
+  {
+
+  public boolean isSuccess()
+  {
+    return error == null;
+  }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * Count-based circuit breaker.
+ * <p>
+ * {@code CLOSED} records the outcome of the last {@code windowSize} calls
+ * and opens once at least {@code minimumCalls} were made and the failure
+ * rate reaches the threshold. {@code OPEN} rejects calls for
+ * {@code openMillis}, then {@code HALF_OPEN} lets {@code halfOpenCalls}
+ * trial calls through: all of them must succeed to close the breaker, a
+ * single failure opens it again.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public class CircuitBreaker
+{
+  public enum State
+  {
+    CLOSED, HALF_OPEN, OPEN
+  }
+
+  private final MicetroConfig.Resilience config;
+
+  private final long openNanos;
+
+  private final BiConsumer<State, State> listener;
+
+  private final boolean[] window;
+
+  private State state = State.CLOSED;
+
+  private int index;
+
+  private int calls;
+
+  private int failures;
+
+  private long openedAt;
+
+  private int trialPermits;
+
+  private int trialSuccesses;
+
+  /**
+   * @param listener called with {@code (from, to)} after every transition
+   */
+  CircuitBreaker(MicetroConfig.Resilience config,
+    BiConsumer<State, State> listener)
+  {
+    this.config = config;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenMillis());
+    this.listener = listener;
+    this.window = new boolean[config.getWindowSize()];
+  }
+
+  /**
+   * Asks for permission to make a call. Every granted call must be followed
+   * by {@link #onSuccess}, {@link #onFailure} or {@link #onCancelled}.
+   */
+  boolean tryAcquire()
+  {
+    State from;
+    synchronized(this)
+    {
+      switch(state)
+      {
+        case CLOSED:
+          return true;
+        case HALF_OPEN:
+          if(trialPermits > 0)
+          {
+            trialPermits --;
+            return true;
+          }
+          return false;
+        default:
+          if(System.nanoTime() - openedAt < openNanos)
+          {
+            return false;
+          }
+          from = transition(State.HALF_OPEN);
+          trialPermits = config.getHalfOpenCalls() - 1;
+          trialSuccesses = 0;
+      }
+    }
+    listener.accept(from, State.HALF_OPEN);
+    return true;
+  }
+
+  void onSuccess()
+  {
+    State from = null;
+    synchronized(this)
+    {
+      if(state == State.HALF_OPEN)
+      {
+        if(++ trialSuccesses >= config.getHalfOpenCalls())
+        {
+          from = transition(State.CLOSED);
+        }
+      }
+      else
+      {
+        record(false);
+      }
+    }
+    fire(from, State.CLOSED);
+  }
+
+  void onFailure()
+  {
+    State from = null;
+    synchronized(this)
+    {
+      if(state == State.HALF_OPEN)
+      {
+        from = transition(State.OPEN);
+      }
+      else if(state == State.CLOSED)
+      {
+        record(true);
+        if(calls >= config.getMinimumCalls()
+          && failures >= config.getFailureRateThreshold() * calls)
+        {
+          from = transition(State.OPEN);
+        }
+      }
+    }
+    fire(from, State.OPEN);
+  }
+
+  /**
+   * Releases a granted call that was cancelled before it had an outcome.
+   */
+  synchronized void onCancelled()
+  {
+    if(state == State.HALF_OPEN)
+    {
+      trialPermits ++;
+    }
+  }
+
+  synchronized State getState()
+  {
+    return state;
+  }
+
+  /**
+   * Seconds until an open breaker lets trial calls through.
+   */
+  synchronized long retryAfterSeconds()
+  {
+    long remaining = openNanos - (System.nanoTime() - openedAt);
+    return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining) + 1);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private void record(boolean failure)
+  {
+    if(calls == window.length)
+    {
+      failures -= window[index] ? 1 : 0;
+    }
+    else
+    {
+      calls ++;
+    }
+    window[index] = failure;
+    failures += failure ? 1 : 0;
+    index = (index + 1) % window.length;
+  }
+
+  private State transition(State to)
+  {
+    State from = state;
+    state = to;
+    if(to == State.OPEN)
+    {
+      openedAt = System.nanoTime();
+    }
+    if(to == State.CLOSED)
+    {
+      calls = 0;
+      failures = 0;
+      index = 0;
+    }
+    return from;
+  }
+
+  private void fire(State from, State to)
+  {
+    if(from != null)
+    {
+      listener.accept(from, to);
+    }
+  }
+
+}
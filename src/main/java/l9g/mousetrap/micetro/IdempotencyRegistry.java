@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Replays the response of a request that carried an {@code Idempotency-Key}
+ * header when the same principal sends the key again. Keys are scoped to the
+ * principal; reusing a key for a different request is rejected with 422.
+ * Only successful responses are stored, so failed requests can be retried
+ * with the same key.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+public class IdempotencyRegistry
+{
+  public static final String HEADER = "Idempotency-Key";
+
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final Cache<String, StoredResponse> responses;
+
+  private final SingleFlight<String, StoredResponse> inFlight;
+
+  private final MeterRegistry meterRegistry;
+
+  private record StoredResponse(
+    String fingerprint, ResponseEntity<String> response)
+    {
+  }
+
+  public IdempotencyRegistry(MicetroConfig micetroConfig,
+    MeterRegistry meterRegistry)
+  {
+    MicetroConfig.Dedup dedup = micetroConfig.getDedup();
+    this.meterRegistry = meterRegistry;
+    this.responses = Caffeine.newBuilder()
+      .expireAfterWrite(Duration.ofSeconds(dedup.getIdempotencyTtl()))
+      .maximumSize(dedup.getMaxIdempotencyKeys())
+      .recordStats()
+      .build();
+    this.inFlight = new SingleFlight<>(meterRegistry.counter(
+      "micetro.dedup", "operation", "idempotency", "result", "coalesced"));
+    CaffeineCacheMetrics.monitor(meterRegistry, responses,
+      "mousetrap.idempotency");
+  }
+
+  /**
+   * Runs {@code handler} unless {@code key} was already used by
+   * {@code principal}, in which case the stored response is returned.
+   *
+   * @param fingerprint identifies the request payload the key was used for
+   */
+  public ResponseEntity<String> execute(String principal, String key,
+    String fingerprint, Supplier<ResponseEntity<String>> handler)
+  {
+    if(key == null || key.isBlank())
+    {
+      return handler.get();
+    }
+
+    if(key.length() > MAX_KEY_LENGTH)
+    {
+      return ResponseEntity.badRequest()
+        .body(HEADER + " longer than " + MAX_KEY_LENGTH + " characters\n");
+    }
+
+    String cacheKey = principal + '\n' + key;
+    StoredResponse stored = responses.getIfPresent(cacheKey);
+    if(stored != null)
+    {
+      return replay(stored, fingerprint);
+    }
+
+    StoredResponse result = inFlight.execute(cacheKey, () ->
+    {
+      StoredResponse previous = responses.getIfPresent(cacheKey);
+      if(previous != null)
+      {
+        return previous;
+      }
+      StoredResponse response =
+        new StoredResponse(fingerprint, handler.get());
+      if(response.response().getStatusCode().is2xxSuccessful())
+      {
+        responses.put(cacheKey, response);
+      }
+      return response;
+    });
+
+    return result.fingerprint().equals(fingerprint)
+      ? result.response()
+      : conflict();
+  }
+
+  private ResponseEntity<String> replay(
+    StoredResponse stored, String fingerprint)
+  {
+    if( ! stored.fingerprint().equals(fingerprint))
+    {
+      return conflict();
+    }
+
+    meterRegistry.counter("micetro.dedup", "operation", "idempotency",
+      "result", "replayed").increment();
+    ResponseEntity<String> response = stored.response();
+    return ResponseEntity.status(response.getStatusCode())
+      .headers(response.getHeaders())
+      .header(REPLAYED_HEADER, "true")
+      .body(response.getBody());
+  }
+
+  private static ResponseEntity<String> conflict()
+  {
+    log.warn("{} reused for a different request", HEADER);
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+      .body(HEADER + " already used for a different request\n");
+  }
+
+}
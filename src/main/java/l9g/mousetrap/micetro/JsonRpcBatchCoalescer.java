@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import l9g.mousetrap.jsonrpc.JsonRpcRequest;
+import l9g.mousetrap.jsonrpc.JsonRpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Collects concurrent JSON-RPC calls into batches.
+ * <p>
+ * The first queued request opens a window of {@code windowMillis}; every
+ * request arriving within that window (up to {@code maxSize}) is sent
+ * together with it in a single HTTP POST.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+class JsonRpcBatchCoalescer
+{
+  private record Pending(JsonRpcRequest request,
+    CompletableFuture<JsonRpcResponse<JsonNode>> future)
+    {
+  }
+
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+  private final ExecutorService senders =
+    Executors.newVirtualThreadPerTaskExecutor();
+
+  private final Function<List<JsonRpcRequest>, Map<Integer, JsonRpcResponse<JsonNode>>> transport;
+
+  private final long windowNanos;
+
+  private final int maxSize;
+
+  private final Thread dispatcher;
+
+  private volatile boolean running = true;
+
+  JsonRpcBatchCoalescer(
+    Function<List<JsonRpcRequest>, Map<Integer, JsonRpcResponse<JsonNode>>> transport,
+    long windowMillis, int maxSize)
+  {
+    this.transport = transport;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.maxSize = Math.max(1, maxSize);
+    this.dispatcher = Thread.ofVirtual()
+      .name("micetro-batch-dispatcher")
+      .start(this :: dispatch);
+  }
+
+  CompletableFuture<JsonRpcResponse<JsonNode>> submit(
+    JsonRpcRequest request)
+  {
+    if( ! running)
+    {
+      return CompletableFuture.failedFuture(shutDown(request));
+    }
+
+    CompletableFuture<JsonRpcResponse<JsonNode>> future =
+      new CompletableFuture<>();
+    Pending pending = new Pending(request, future);
+    queue.add(pending);
+
+    // a shutdown in between may have drained the queue already
+    if( ! running && queue.remove(pending))
+    {
+      future.completeExceptionally(shutDown(request));
+    }
+    return future;
+  }
+
+  private static IllegalStateException shutDown(JsonRpcRequest request)
+  {
+    return new IllegalStateException(
+      "batch coalescer is shut down, " + request.method() + " not sent");
+  }
+
+  void shutdown()
+  {
+    running = false;
+    dispatcher.interrupt();
+    senders.shutdown();
+  }
+
+  private void dispatch()
+  {
+    try
+    {
+      while(running)
+      {
+        List<Pending> batch = new ArrayList<>();
+        try
+        {
+          batch.add(queue.take());
+          long deadline = System.nanoTime() + windowNanos;
+
+          while(batch.size() < maxSize)
+          {
+            long remaining = deadline - System.nanoTime();
+            Pending next = remaining > 0
+              ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if(next == null)
+            {
+              break;
+            }
+            batch.add(next);
+          }
+
+          senders.execute(() -> send(batch));
+        }
+        catch(InterruptedException ex)
+        {
+          Thread.currentThread().interrupt();
+          fail(batch);
+          break;
+        }
+        catch(RejectedExecutionException ex)
+        {
+          // shut down between collecting and sending the batch
+          fail(batch);
+          break;
+        }
+      }
+    }
+    finally
+    {
+      List<Pending> left = new ArrayList<>();
+      queue.drainTo(left);
+      fail(left);
+    }
+  }
+
+  private static void fail(List<Pending> batch)
+  {
+    batch.forEach(pending -> pending.future().completeExceptionally(
+      shutDown(pending.request())));
+  }
+
+  private void send(List<Pending> batch)
+  {
+    log.debug("sending batch of {} request(s)", batch.size());
+    try
+    {
+      Map<Integer, JsonRpcResponse<JsonNode>> responses =
+        transport.apply(batch.stream().map(Pending :: request).toList());
+
+      for(Pending pending : batch)
+      {
+        JsonRpcResponse<JsonNode> response =
+          responses.get(pending.request().id());
+        if(response != null)
+        {
+          pending.future().complete(response);
+        }
+        else
+        {
+          pending.future().completeExceptionally(new IllegalStateException(
+            "no response for request id " + pending.request().id()));
+        }
+      }
+    }
+    catch(RuntimeException ex)
+    {
+      batch.forEach(pending -> pending.future().completeExceptionally(ex));
+    }
+  }
+
+}
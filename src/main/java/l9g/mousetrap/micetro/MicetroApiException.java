@@ -16,11 +16,13 @@
 package l9g.mousetrap.micetro;
 
 import l9g.mousetrap.jsonrpc.JsonRpcError;
+import lombok.Getter;
 
 /**
  *
  * @author Thorsten Ludewig (t.ludewig@gmail.com)
  */
+@Getter
 public class MicetroApiException extends RuntimeException
 {
   private final int code;
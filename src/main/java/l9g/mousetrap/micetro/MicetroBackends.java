@@ -0,0 +1,192 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import l9g.mousetrap.token.PermissionIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+/**
+ *
+ * The configured Micetro backends and the zone routing table.
+ * <p>
+ * Every entry of {@code micetro.backends} gets its own {@link MicetroClient},
+ * {@link MicetroSessionManager}, {@link MicetroConcurrencyLimiter} and
+ * {@link MicetroHttpTransport}. Without that list the top-level connection
+ * settings form the single backend {@value #DEFAULT_BACKEND}.
+ * <p>
+ * {@link #route(String)} maps a zone to its backends: the first entry of
+ * {@code micetro.routes} whose zones match, otherwise
+ * {@code micetro.default-backends} or the first backend. The table is fixed
+ * at startup; the compiled zone patterns are matched on every call, so
+ * client-supplied zone names are never retained.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+public class MicetroBackends
+{
+  public static final String DEFAULT_BACKEND = "default";
+
+  private record CompiledRoute(PermissionIndex zones,
+    List<MicetroBackend> backends)
+    {
+  }
+
+  private final Map<String, MicetroBackend> backends = new LinkedHashMap<>();
+
+  private final List<CompiledRoute> routes = new ArrayList<>();
+
+  private final List<MicetroBackend> defaultBackends;
+
+  public MicetroBackends(MicetroConfig micetroConfig,
+    ObjectProvider<RestClient.Builder> restClientBuilders,
+    MicetroResilience resilience, MicetroFlightRecorder flightRecorder,
+    MeterRegistry meterRegistry, ObjectMapper objectMapper,
+    ApplicationEventPublisher publisher)
+  {
+    Map<String, MicetroConfig.Backend> connections =
+      new LinkedHashMap<>(micetroConfig.getBackends());
+    if(connections.isEmpty())
+    {
+      MicetroConfig.Backend connection = new MicetroConfig.Backend();
+      connection.setApiUrl(micetroConfig.getApiUrl());
+      connection.setServer(micetroConfig.getServer());
+      connection.setLoginName(micetroConfig.getLoginName());
+      connection.setPassword(micetroConfig.getPassword());
+      connections.put(DEFAULT_BACKEND, connection);
+    }
+
+    MicetroSaturation saturation = new MicetroSaturation(publisher);
+    connections.forEach((name, connection) ->
+    {
+      log.info("Micetro backend '{}': {}", name, connection);
+      MicetroHttpTransport transport =
+        new MicetroHttpTransport(name, micetroConfig, meterRegistry);
+      MicetroConcurrencyLimiter limiter =
+        new MicetroConcurrencyLimiter(name, micetroConfig, saturation);
+      MicetroClient client = new MicetroClient(name, connection.getApiUrl(),
+        restClientBuilders.getObject(), micetroConfig, transport, limiter,
+        resilience, flightRecorder, meterRegistry, objectMapper);
+      MicetroSessionManager sessionManager = new MicetroSessionManager(name,
+        connection, client, micetroConfig, meterRegistry);
+      backends.put(name, new MicetroBackend(name, client, sessionManager,
+        limiter, transport));
+    });
+
+    for(MicetroConfig.Route route : micetroConfig.getRoutes())
+    {
+      routes.add(new CompiledRoute(PermissionIndex.compile(route.getZones()),
+        resolve(route.getBackends(), "route " + route.getZones())));
+      log.info("Micetro route: {} -> {}", route.getZones(),
+        route.getBackends());
+    }
+
+    this.defaultBackends = micetroConfig.getDefaultBackends().isEmpty()
+      ? List.of(backends.values().iterator().next())
+      : resolve(micetroConfig.getDefaultBackends(), "default-backends");
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private List<MicetroBackend> resolve(List<String> names, String context)
+  {
+    if(names == null || names.isEmpty())
+    {
+      throw new IllegalStateException("no Micetro backend in " + context);
+    }
+
+    List<MicetroBackend> resolved = new ArrayList<>(names.size());
+    for(String name : names)
+    {
+      MicetroBackend backend = backends.get(name);
+      if(backend == null)
+      {
+        throw new IllegalStateException(
+          "unknown Micetro backend '" + name + "' in " + context);
+      }
+      resolved.add(backend);
+    }
+    return List.copyOf(resolved);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * The backends serving {@code zone}. More than one backend means the zone
+   * is replicated and writes go to all of them.
+   */
+  public List<MicetroBackend> route(String zone)
+  {
+    for(CompiledRoute route : routes)
+    {
+      if(route.zones().permits(zone))
+      {
+        return route.backends();
+      }
+    }
+    return defaultBackends;
+  }
+
+  public List<MicetroBackend> all()
+  {
+    return List.copyOf(backends.values());
+  }
+
+  /**
+   * Renews the sessions of all backends shortly before they expire.
+   */
+  @Scheduled(initialDelay = 0,
+             fixedDelayString = "${micetro.session-renew-interval:5}",
+             timeUnit = TimeUnit.SECONDS)
+  public void renewSessions()
+  {
+    backends.values().forEach(backend -> backend.sessionManager().renew());
+  }
+
+  @PreDestroy
+  void shutdown()
+  {
+    for(MicetroBackend backend : backends.values())
+    {
+      backend.client().shutdown();
+      try
+      {
+        backend.transport().close();
+      }
+      catch(IOException ex)
+      {
+        log.warn("closing HTTP transport of '{}' failed: {}", backend.name(),
+          ex.getMessage());
+      }
+    }
+  }
+
+}
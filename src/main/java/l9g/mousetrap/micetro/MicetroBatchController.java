@@ -0,0 +1,271 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import l9g.mousetrap.token.AuthenticatedBearerToken;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ *
+ * Bulk variant of the add/remove endpoints. The token is checked once, the
+ * entries are grouped by zone and every zone is applied with one JSON-RPC
+ * batch per zone ref. Zones are processed in parallel and the per-entry
+ * results are streamed back as NDJSON as soon as their zone completes.
+ * <p>
+ * Bulk requests are always applied synchronously, also when the asynchronous
+ * operation log is enabled.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(path = "/api/v1/micetro/batch",
+                produces = MicetroBatchController.APPLICATION_NDJSON_VALUE)
+public class MicetroBatchController
+{
+  static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  private final MicetroService service;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ObjectMapper objectMapper;
+
+  @FunctionalInterface
+  private interface ZoneOperation
+  {
+    List<BatchResult<Integer>> apply(
+      BearerToken token, String zone, List<BatchEntry> entries);
+  }
+
+  @PostMapping
+  public ResponseEntity<StreamingResponseBody> add(
+    @RequestBody List<BatchEntry> entries,
+    HttpServletRequest servletRequest,
+    @Parameter(hidden = true) @AuthenticatedBearerToken BearerToken token)
+  {
+    return process("add_batch", entries, servletRequest, token,
+      service :: addTxtRecordsBatch);
+  }
+
+  @DeleteMapping
+  public ResponseEntity<StreamingResponseBody> remove(
+    @RequestBody List<BatchEntry> entries,
+    HttpServletRequest servletRequest,
+    @Parameter(hidden = true) @AuthenticatedBearerToken BearerToken token)
+  {
+    return process("remove_batch", entries, servletRequest, token,
+      service :: removeTxtRecordsBatch);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private ResponseEntity<StreamingResponseBody> process(String operation,
+    List<BatchEntry> entries, HttpServletRequest servletRequest,
+    BearerToken token, ZoneOperation zoneOperation)
+  {
+    if(token.isEnabled() == false)
+    {
+      return rejected(operation, "disabled_token");
+    }
+
+    if(entries == null || entries.isEmpty())
+    {
+      return rejected(operation, "bad_request");
+    }
+
+    log.info("{}: entries={}, owner={}, ip={}", operation.toUpperCase(),
+      entries.size(), token.getOwner(), servletRequest.getRemoteAddr());
+
+    List<BatchEntryResult> rejectedEntries = new ArrayList<>();
+    Map<String, ZoneGroup> zones = new LinkedHashMap<>();
+
+    for(int i = 0; i < entries.size(); i ++)
+    {
+      BatchEntry entry = entries.get(i);
+      String zone = entry == null ? null
+        : MicetroController.normalizeZone(entry.zone());
+      String name = zone == null ? null
+        : MicetroController.normalizeName(zone, entry.name());
+
+      if(zone == null || name == null)
+      {
+        rejectedEntries.add(BatchEntryResult.failed(i,
+          entry == null ? new BatchEntry(null, null, null) : entry,
+          "bad_request", "zone and name are required"));
+        count(operation, "bad_request");
+      }
+      else if( ! MicetroController.checkFqdn(token, zone, name))
+      {
+        log.warn("FORBIDDEN {}: zone={}, name={}, owner={}, ip={}",
+          operation.toUpperCase(), zone, name, token.getOwner(),
+          servletRequest.getRemoteAddr());
+        rejectedEntries.add(BatchEntryResult.failed(i, entry, "forbidden",
+          "fqdn not permitted"));
+        count(operation, "forbidden_fqdn");
+      }
+      else
+      {
+        zones.computeIfAbsent(zone, z -> new ZoneGroup())
+          .add(i, new BatchEntry(zone, name, entry.data()));
+      }
+    }
+
+    StreamingResponseBody body = out ->
+    {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      String status = "200";
+      try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+      {
+        writeLines(out, rejectedEntries);
+        zones.forEach((zone, group) -> executor.execute(
+          () -> writeLines(out, applyZone(zone, group, token, zoneOperation))));
+      }
+      catch(RuntimeException ex)
+      {
+        status = "exception";
+        throw ex;
+      }
+      finally
+      {
+        sample.stop(Timer.builder("mousetrap.requests")
+          .description("End-to-end latency of add/remove requests")
+          .tag("operation", operation)
+          .tag("owner", Objects.requireNonNullElse(token.getOwner(), "unknown"))
+          .tag("status", status)
+          .register(meterRegistry));
+      }
+    };
+
+    return ResponseEntity.ok(body);
+  }
+
+  private static List<BatchEntryResult> applyZone(String zone,
+    ZoneGroup group, BearerToken token, ZoneOperation zoneOperation)
+  {
+    List<BatchEntryResult> lines = new ArrayList<>(group.entries.size());
+    try
+    {
+      List<BatchResult<Integer>> results =
+        zoneOperation.apply(token, zone, group.entries);
+      for(int i = 0; i < results.size(); i ++)
+      {
+        BatchResult<Integer> result = results.get(i);
+        lines.add(result.isSuccess()
+          ? BatchEntryResult.ok(group.indexes.get(i), group.entries.get(i),
+            result.result())
+          : BatchEntryResult.failed(group.indexes.get(i), group.entries.get(i),
+            "error", result.error().getMessage()));
+      }
+    }
+    catch(RuntimeException ex)
+    {
+      String status = switch(ex)
+      {
+        case ZoneNotFoundException e -> "not_found";
+        case AccessDeniedException e -> "forbidden";
+        default -> "error";
+      };
+      log.warn("batch failed for zone '{}': {}", zone, ex.getMessage());
+      lines.clear();
+      for(int i = 0; i < group.entries.size(); i ++)
+      {
+        lines.add(BatchEntryResult.failed(group.indexes.get(i),
+          group.entries.get(i), status, ex.getMessage()));
+      }
+    }
+    return lines;
+  }
+
+  private void writeLines(OutputStream out, List<BatchEntryResult> lines)
+  {
+    if(lines.isEmpty())
+    {
+      return;
+    }
+
+    try
+    {
+      synchronized(out)
+      {
+        for(BatchEntryResult line : lines)
+        {
+          out.write(objectMapper.writeValueAsBytes(line));
+          out.write('\n');
+        }
+        out.flush();
+      }
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private ResponseEntity<StreamingResponseBody> rejected(
+    String operation, String reason)
+  {
+    count(operation, reason);
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+  }
+
+  private void count(String operation, String reason)
+  {
+    meterRegistry.counter("mousetrap.requests.rejected",
+      "operation", operation, "reason", reason).increment();
+  }
+
+  private static class ZoneGroup
+  {
+    private final List<Integer> indexes = new ArrayList<>();
+
+    private final List<BatchEntry> entries = new ArrayList<>();
+
+    private void add(int index, BatchEntry entry)
+    {
+      indexes.add(index);
+      entries.add(entry);
+    }
+  }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.time.Instant;
+
+/**
+ *
+ * Published as an application event whenever a Micetro circuit breaker
+ * changes state.
+ *
+ * @param endpoint Micetro API URL the breaker guards
+ * @param methodClass {@code read} or {@code write}
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record MicetroCircuitEvent(String endpoint, String methodClass,
+  CircuitBreaker.State from, CircuitBreaker.State to, Instant time)
+  {
+}
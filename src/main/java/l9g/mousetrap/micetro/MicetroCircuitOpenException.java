@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+/**
+ *
+ * Thrown without calling Micetro while the circuit breaker for the endpoint
+ * and method class is open.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public class MicetroCircuitOpenException extends MicetroSaturatedException
+{
+  private static final long serialVersionUID = 6170273551829207215L;
+
+  public MicetroCircuitOpenException(String message, long retryAfterSeconds)
+  {
+    super(message, retryAfterSeconds);
+  }
+
+}
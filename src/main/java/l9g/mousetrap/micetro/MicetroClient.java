@@ -15,56 +15,519 @@
  */
 package l9g.mousetrap.micetro;
 
-import java.util.LinkedHashMap;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.NullNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import l9g.mousetrap.jfr.MicetroCallEvent;
+import l9g.mousetrap.jsonrpc.JsonRpcError;
 import l9g.mousetrap.jsonrpc.JsonRpcRequest;
 import l9g.mousetrap.jsonrpc.JsonRpcResponse;
+import l9g.mousetrap.jsonrpc.ResultExtractor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.stereotype.Service;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 
 /**
+ *
+ * JSON-RPC client for the Micetro API.
+ * <p>
+ * Requests are written with a pre-built {@link ObjectWriter}. Responses are
+ * not bound to a tree: the {@code result} member is handed to a
+ * {@link ResultExtractor} straight from the token stream, so only the fields
+ * mousetrap actually needs are materialized.
+ * <p>
+ * One client talks to one Micetro backend; the clients are created by
+ * {@link MicetroBackends}.
  *
  * @author Thorsten Ludewig (t.ludewig@gmail.com)
  */
 @Slf4j
-@Service
-public class MicetroClient
+public final class MicetroClient
 {
+  private final String backend;
+
   private final RestClient restClient;
 
   private final AtomicInteger requestId = new AtomicInteger(0);
 
-  public MicetroClient(RestClient.Builder builder, MicetroConfig config)
+  private final JsonRpcBatchCoalescer coalescer;
+
+  private final MicetroConcurrencyLimiter limiter;
+
+  private final MicetroResilience resilience;
+
+  private final MicetroFlightRecorder flightRecorder;
+
+  private final String endpoint;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ObjectMapper objectMapper;
+
+  private final ObjectWriter requestWriter;
+
+  private final ObjectWriter batchWriter;
+
+  private final ObjectReader errorReader;
+
+  private final ObjectReader batchReader;
+
+  /**
+   * Longest wait for a coalesced call, the request deadline.
+   */
+  private final long awaitTimeoutMillis;
+
+  public MicetroClient(String backend, String apiUrl,
+    RestClient.Builder builder, MicetroConfig config,
+    MicetroHttpTransport transport, MicetroConcurrencyLimiter limiter,
+    MicetroResilience resilience, MicetroFlightRecorder flightRecorder,
+    MeterRegistry meterRegistry, ObjectMapper objectMapper)
   {
-    this.restClient = builder
-      .baseUrl(config.getApiUrl())
+    this.backend = backend;
+    this.limiter = limiter;
+    this.resilience = resilience;
+    this.flightRecorder = flightRecorder;
+    this.endpoint = apiUrl;
+    this.awaitTimeoutMillis = config.getRequestDeadlineMillis();
+    this.meterRegistry = meterRegistry;
+    this.objectMapper = objectMapper;
+    this.requestWriter = objectMapper.writerFor(JsonRpcRequest.class);
+    this.batchWriter = objectMapper.writerFor(
+      new TypeReference<List<JsonRpcRequest>>(){});
+    this.errorReader = objectMapper.readerFor(JsonRpcError.class);
+    this.batchReader = objectMapper.readerFor(
+      new TypeReference<List<JsonRpcResponse<JsonNode>>>(){});
+    this.restClient = transport.apply(builder)
+      .baseUrl(apiUrl)
       .defaultHeader(
         HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
       .build();
+
+    MicetroConfig.Batch batch = config.getBatch();
+    this.coalescer = batch.isCoalesce()
+      ? new JsonRpcBatchCoalescer(this :: batch,
+        batch.getWindowMillis(), batch.getMaxSize())
+      : null;
   }
 
-  public LinkedHashMap<String, Object> call(String method, Object params)
+  void shutdown()
   {
-    JsonRpcRequest request =
-      new JsonRpcRequest(method, params, requestId.incrementAndGet());
+    if(coalescer != null)
+    {
+      coalescer.shutdown();
+    }
+  }
+
+  /**
+   * Creates a request with the next free request id.
+   */
+  public JsonRpcRequest request(String method, Object params)
+  {
+    return new JsonRpcRequest(method, params, requestId.incrementAndGet());
+  }
+
+  /**
+   * Calls a Micetro method and extracts the result with {@code extractor}.
+   *
+   * @throws MicetroApiException if Micetro answers with a JSON-RPC error
+   */
+  public <R> R call(
+    String method, Object params, ResultExtractor<R> extractor)
+  {
+    JsonRpcRequest request = request(method, params);
     log.trace("request={}", request);
 
-    JsonRpcResponse<LinkedHashMap<String,Object>> response = restClient.post()
-      .body(request)
-      .retrieve()
-      .body(new ParameterizedTypeReference<JsonRpcResponse<LinkedHashMap<String,Object>>>(){});
+    MicetroCallEvent event = new MicetroCallEvent();
+    event.begin();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "exception";
+    AtomicLong responseBytes = new AtomicLong(-1);
+    try
+    {
+      R result = coalescer != null
+        ? extract(await(request), extractor)
+        : resilience.execute(endpoint, method,
+          () -> send(request, extractor, responseBytes));
+      outcome = "success";
+      log.debug("{} result={}", method, result);
+      return result;
+    }
+    catch(MicetroApiException ex)
+    {
+      outcome = "error";
+      throw ex;
+    }
+    finally
+    {
+      long durationNanos = sample.stop(Timer.builder("micetro.client.requests")
+        .description("Latency of Micetro JSON-RPC calls")
+        .tag("backend", backend)
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+      flightRecorder.record(backend, method, request.id(), durationNanos,
+        responseBytes.get(), outcome);
+      if(event.shouldCommit())
+      {
+        event.backend = backend;
+        event.method = method;
+        event.requestId = request.id();
+        event.responseBytes = responseBytes.get();
+        event.outcome = outcome;
+        event.commit();
+      }
+    }
+  }
 
-    if(response != null && response.error() != null)
+  /**
+   * Sends all requests as one JSON-RPC 2.0 batch and maps the responses back
+   * to their request ids. Errors are returned per response and not thrown.
+   */
+  public Map<Integer, JsonRpcResponse<JsonNode>> batch(
+    List<JsonRpcRequest> requests)
+  {
+    return batch(requests, new AtomicLong());
+  }
+
+  private Map<Integer, JsonRpcResponse<JsonNode>> batch(
+    List<JsonRpcRequest> requests, AtomicLong responseBytes)
+  {
+    log.trace("batch={}", requests);
+    byte[] body = write(batchWriter, requests);
+
+    List<JsonRpcResponse<JsonNode>> responses = resilience.execute(
+      endpoint, batchMethod(requests), () -> limiter.execute(
+      () -> restClient.post()
+        .body(body)
+        .exchange((clientRequest, clientResponse) ->
+        {
+          checkStatus(clientResponse);
+          try(InputStream in =
+            new CountingInputStream(clientResponse.getBody(), responseBytes))
+          {
+            return batchReader.<List<JsonRpcResponse<JsonNode>>>readValue(in);
+          }
+        })));
+
+    Map<Integer, JsonRpcResponse<JsonNode>> result = new HashMap<>();
+    if(responses != null)
+    {
+      for(JsonRpcResponse<JsonNode> response : responses)
+      {
+        result.put(response.id(), response);
+      }
+    }
+
+    log.debug("batch responses={}", result.size());
+    return result;
+  }
+
+  /**
+   * Calls one method with several parameter sets in a single JSON-RPC batch.
+   * The results are returned in the order of {@code paramsList}.
+   */
+  public <R> List<BatchResult<R>> callBatch(
+    String method, List<?> paramsList, ResultExtractor<R> extractor)
+  {
+    List<JsonRpcRequest> requests = new ArrayList<>(paramsList.size());
+    paramsList.forEach(params -> requests.add(request(method, params)));
+
+    MicetroCallEvent event = new MicetroCallEvent();
+    event.begin();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "exception";
+    AtomicLong responseBytes = new AtomicLong(-1);
+    try
+    {
+      Map<Integer, JsonRpcResponse<JsonNode>> responses =
+        batch(requests, responseBytes);
+      List<BatchResult<R>> results = new ArrayList<>(requests.size());
+      for(JsonRpcRequest request : requests)
+      {
+        JsonRpcResponse<JsonNode> response = responses.get(request.id());
+        if(response == null)
+        {
+          throw new IllegalStateException(
+            "no response for request id " + request.id());
+        }
+        try
+        {
+          results.add(new BatchResult<>(extract(response, extractor), null));
+        }
+        catch(MicetroApiException ex)
+        {
+          results.add(new BatchResult<>(null, ex));
+        }
+      }
+      outcome = "success";
+      return results;
+    }
+    finally
+    {
+      long durationNanos = sample.stop(Timer.builder("micetro.client.requests")
+        .description("Latency of Micetro JSON-RPC calls")
+        .tag("backend", backend)
+        .tag("method", method + "[batch]")
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+      int firstId = requests.isEmpty() ? 0 : requests.get(0).id();
+      flightRecorder.record(backend, method + "[batch]", firstId,
+        durationNanos, responseBytes.get(), outcome);
+      if(event.shouldCommit())
+      {
+        event.backend = backend;
+        event.method = method + "[batch]";
+        event.requestId = firstId;
+        event.responseBytes = responseBytes.get();
+        event.outcome = outcome;
+        event.commit();
+      }
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static byte[] write(ObjectWriter writer, Object value)
+  {
+    try
+    {
+      return writer.writeValueAsBytes(value);
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * The method of a batch for the resilience policy: the common method of
+   * all requests or {@code batch}, which is treated as a write.
+   */
+  private static String batchMethod(List<JsonRpcRequest> requests)
+  {
+    String method = requests.isEmpty() ? "batch" : requests.get(0).method();
+    for(JsonRpcRequest request : requests)
+    {
+      if( ! request.method().equals(method))
+      {
+        return "batch";
+      }
+    }
+    return method;
+  }
+
+  private static void checkStatus(ClientHttpResponse response)
+    throws IOException
+  {
+    if(response.getStatusCode().isError())
+    {
+      byte[] body = response.getBody().readAllBytes();
+      HttpHeaders headers = response.getHeaders();
+      String statusText = response.getStatusText();
+      RestClientResponseException ex = response.getStatusCode().is4xxClientError()
+        ? HttpClientErrorException.create(response.getStatusCode(),
+          statusText, headers, body, StandardCharsets.UTF_8)
+        : HttpServerErrorException.create(response.getStatusCode(),
+          statusText, headers, body, StandardCharsets.UTF_8);
+      throw ex;
+    }
+  }
+
+  private <R> R send(JsonRpcRequest request, ResultExtractor<R> extractor,
+    AtomicLong responseBytes)
+  {
+    byte[] body = write(requestWriter, request);
+    Reply<R> reply = limiter.execute(() -> restClient.post()
+      .body(body)
+      .exchange((clientRequest, clientResponse) ->
+      {
+        checkStatus(clientResponse);
+        try(InputStream in =
+          new CountingInputStream(clientResponse.getBody(), responseBytes);
+          JsonParser parser = objectMapper.createParser(in))
+        {
+          return read(parser, extractor);
+        }
+      }));
+
+    // thrown outside the limiter: a JSON-RPC error is a completed round-trip
+    if(reply.error() != null)
+    {
+      throw new MicetroApiException(reply.error());
+    }
+    return reply.result();
+  }
+
+  /**
+   * A response read from the wire, either the extracted result or the error.
+   */
+  private record Reply<R>(R result, JsonRpcError error)
+    {
+  }
+
+  private <R> Reply<R> read(JsonParser parser, ResultExtractor<R> extractor)
+    throws IOException
+  {
+    if(parser.nextToken() != JsonToken.START_OBJECT)
+    {
+      throw new IOException("JSON-RPC response is not an object");
+    }
+
+    R result = null;
+    JsonRpcError error = null;
+
+    while(parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch(field)
+      {
+        case "result" ->
+          result = extractor.extract(parser);
+        case "error" ->
+          error = parser.currentToken() == JsonToken.VALUE_NULL
+            ? null : errorReader.readValue(parser);
+        default ->
+          parser.skipChildren();
+      }
+    }
+
+    return new Reply<>(result, error);
+  }
+
+  private <R> R extract(
+    JsonRpcResponse<JsonNode> response, ResultExtractor<R> extractor)
+  {
+    if(response.error() != null)
     {
       throw new MicetroApiException(response.error());
     }
 
-    log.debug("response={}", response);
-    return response != null ? response.result() : null;
+    JsonNode result =
+      response.result() != null ? response.result() : NullNode.getInstance();
+    try(JsonParser parser = objectMapper.treeAsTokens(result))
+    {
+      parser.nextToken();
+      return extractor.extract(parser);
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private JsonRpcResponse<JsonNode> await(JsonRpcRequest request)
+  {
+    try
+    {
+      CompletableFuture<JsonRpcResponse<JsonNode>> future =
+        coalescer.submit(request);
+      try
+      {
+        return future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+      }
+      catch(TimeoutException ex)
+      {
+        future.cancel(false);
+        throw new IllegalStateException("no response to " + request.method()
+          + " within " + awaitTimeoutMillis + "ms", ex);
+      }
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for "
+        + request.method(), ex);
+    }
+    catch(ExecutionException ex)
+    {
+      if(ex.getCause() instanceof RuntimeException runtimeException)
+      {
+        throw runtimeException;
+      }
+      throw new CompletionException(ex.getCause());
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Counts the response bytes for the {@link MicetroFlightRecorder}.
+   */
+  private static final class CountingInputStream extends FilterInputStream
+  {
+    private final AtomicLong count;
+
+    private CountingInputStream(InputStream in, AtomicLong count)
+    {
+      super(in);
+      this.count = count;
+      count.set(0);
+    }
+
+    @Override
+    public int read()
+      throws IOException
+    {
+      int b = super.read();
+      if(b >= 0)
+      {
+        count.incrementAndGet();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+      throws IOException
+    {
+      int n = super.read(b, off, len);
+      if(n > 0)
+      {
+        count.addAndGet(n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n)
+      throws IOException
+    {
+      long skipped = super.skip(n);
+      count.addAndGet(skipped);
+      return skipped;
+    }
+
   }
 
 }
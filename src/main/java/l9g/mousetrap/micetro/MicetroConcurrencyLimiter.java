@@ -0,0 +1,253 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.ReadinessState;
+
+/**
+ *
+ * Adaptive concurrency limit for calls to Micetro.
+ * <p>
+ * The limit follows a latency gradient: a slowly moving average of the
+ * round-trip time is compared to each new sample. While samples stay within
+ * {@code tolerance} of that baseline the limit grows, when Micetro slows down
+ * it shrinks; transport failures cut it by {@code backoffRatio}. Callers
+ * above the limit wait in a bounded queue. When the queue is full the call is
+ * rejected with a {@link MicetroSaturatedException} and the backend is
+ * reported to {@link MicetroSaturation}, which switches the application
+ * readiness state to {@link ReadinessState#REFUSING_TRAFFIC} until the queues
+ * of all backends have drained.
+ * <p>
+ * Every backend has its own limiter, created by {@link MicetroBackends}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class MicetroConcurrencyLimiter
+{
+  private static final double SMOOTHING = 0.2;
+
+  private static final double BASELINE_ALPHA = 0.01;
+
+  private final String backend;
+
+  private final MicetroConfig.Limiter config;
+
+  private final MicetroSaturation saturation;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition released = lock.newCondition();
+
+  private double limit;
+
+  private int inFlight;
+
+  private int waiting;
+
+  private double baselineRttNanos;
+
+  private double smoothedRttNanos;
+
+  private boolean saturated;
+
+  public MicetroConcurrencyLimiter(String backend,
+    MicetroConfig micetroConfig, MicetroSaturation saturation)
+  {
+    this.backend = backend;
+    this.config = micetroConfig.getLimiter();
+    this.saturation = saturation;
+    this.limit = config.getInitialLimit();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private void acquire()
+  {
+    lock.lock();
+    try
+    {
+      if(inFlight < (int)limit)
+      {
+        inFlight++;
+        return;
+      }
+
+      if(waiting >= config.getMaxQueue())
+      {
+        throw reject("wait queue full");
+      }
+
+      waiting++;
+      try
+      {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMillis());
+        while(inFlight >= (int)limit)
+        {
+          if(nanos <= 0)
+          {
+            throw reject("wait timeout");
+          }
+          nanos = released.awaitNanos(nanos);
+        }
+        inFlight++;
+      }
+      catch(InterruptedException ex)
+      {
+        // a cancelled call, not a sign of saturation
+        Thread.currentThread().interrupt();
+        CancellationException cancelled =
+          new CancellationException("cancelled while waiting for a slot");
+        cancelled.initCause(ex);
+        throw cancelled;
+      }
+      finally
+      {
+        waiting--;
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private void release(long rttNanos, boolean failed)
+  {
+    lock.lock();
+    try
+    {
+      inFlight--;
+
+      if(failed)
+      {
+        limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+      }
+      else
+      {
+        baselineRttNanos = baselineRttNanos == 0 ? rttNanos
+          : baselineRttNanos * (1 - BASELINE_ALPHA) + rttNanos * BASELINE_ALPHA;
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos
+          : smoothedRttNanos * (1 - SMOOTHING) + rttNanos * SMOOTHING;
+
+        double gradient = Math.max(0.5, Math.min(1.0,
+          config.getTolerance() * baselineRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(config.getMinLimit(),
+          Math.min(config.getMaxLimit(), limit));
+      }
+
+      if(saturated && waiting == 0)
+      {
+        saturated = false;
+        log.info("Micetro '{}' no longer saturated, limit={}", backend,
+          (int)limit);
+        saturation.drained(backend);
+      }
+
+      released.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private MicetroSaturatedException reject(String reason)
+  {
+    if( ! saturated)
+    {
+      saturated = true;
+      log.warn("Micetro '{}' saturated ({}), limit={}, inFlight={}, "
+        + "waiting={}", backend, reason, (int)limit, inFlight, waiting);
+      saturation.saturated(backend);
+    }
+
+    // time to drain the queue at the current rate
+    double seconds = smoothedRttNanos / 1e9 * (waiting + 1) / Math.max(1, limit);
+    return new MicetroSaturatedException("Micetro saturated: " + reason,
+      Math.max(1, (long)Math.ceil(seconds)));
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Runs a Micetro round-trip within the concurrency limit.
+   */
+  public <T> T execute(Supplier<T> call)
+  {
+    acquire();
+    long start = System.nanoTime();
+    boolean failed = true;
+    try
+    {
+      T result = call.get();
+      failed = false;
+      return result;
+    }
+    finally
+    {
+      release(System.nanoTime() - start, failed);
+    }
+  }
+
+  public int getLimit()
+  {
+    lock.lock();
+    try
+    {
+      return (int)limit;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlight()
+  {
+    lock.lock();
+    try
+    {
+      return inFlight;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public int getWaiting()
+  {
+    lock.lock();
+    try
+    {
+      return waiting;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+}
@@ -15,6 +15,9 @@
  */
 package l9g.mousetrap.micetro;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.Data;
 import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -36,4 +39,402 @@ public class MicetroConfig
   private String password;
   private boolean unauthorizedAsForbidden;
   private long sessionCacheTtl;
+
+  /**
+   * Seconds before the end of {@code sessionCacheTtl} at which the session is
+   * renewed in the background.
+   */
+  private long sessionRenewMargin = 30;
+
+  /**
+   * JSON-RPC error codes that Micetro returns for an invalid or expired
+   * session.
+   */
+  private List<Integer> invalidSessionCodes = List.of(18);
+
+  /**
+   * Seconds a resolved zone-to-ref mapping is kept in the zone cache.
+   */
+  private long zoneCacheTtl = 3600;
+
+  /**
+   * Seconds after which a cached zone mapping is reloaded in the background
+   * on the next access (refresh-ahead).
+   */
+  private long zoneCacheRefresh = 300;
+
+  /**
+   * Seconds an unknown zone (negative lookup result) is kept in the cache.
+   */
+  private long zoneCacheNegativeTtl = 60;
+
+  /**
+   * Milliseconds a single add or remove may take for all zone refs of a
+   * zone; refs still running after that are cancelled.
+   */
+  private long requestDeadlineMillis = 30000;
+
+  /**
+   * Named Micetro installations. When empty, {@code apiUrl}, {@code server},
+   * {@code loginName} and {@code password} above form a single backend named
+   * {@value MicetroBackends#DEFAULT_BACKEND}.
+   */
+  private Map<String, Backend> backends = new LinkedHashMap<>();
+
+  /**
+   * Zone-to-backend routing table, first matching route wins.
+   */
+  private List<Route> routes = List.of();
+
+  /**
+   * Backends of zones without a route; empty for the first backend.
+   */
+  private List<String> defaultBackends = List.of();
+
+  private Batch batch = new Batch();
+
+  private Async async = new Async();
+
+  private Limiter limiter = new Limiter();
+
+  private Http http = new Http();
+
+  private Dedup dedup = new Dedup();
+
+  private Ledger ledger = new Ledger();
+
+  private Sweeper sweeper = new Sweeper();
+
+  private Resilience resilience = new Resilience();
+
+  private FlightRecorder flightRecorder = new FlightRecorder();
+
+  /**
+   * Connection and login of one Micetro installation. The HTTP, limiter,
+   * batch and resilience settings are shared by all backends, but every
+   * backend gets its own instances of them.
+   */
+  @Data
+  @ToString(exclude = "password")
+  public static class Backend
+  {
+    private String apiUrl;
+    private String server;
+    private String loginName;
+    private String password;
+  }
+
+  /**
+   * Zones served by a list of backends. Zones are given like the
+   * {@code permitted-zones} of a bearer token, {@code *.example.de.} routes
+   * every zone below {@code example.de.}. A zone routed to several backends
+   * is replicated: every write goes to all of them.
+   */
+  @Data
+  @ToString
+  public static class Route
+  {
+    private List<String> zones = List.of();
+
+    private List<String> backends = List.of();
+  }
+
+  /**
+   * Coalescing of concurrent JSON-RPC calls into batch requests.
+   */
+  @Data
+  @ToString
+  public static class Batch
+  {
+    /**
+     * Collect concurrent calls into JSON-RPC 2.0 batches.
+     */
+    private boolean coalesce = false;
+
+    /**
+     * Milliseconds to wait for further calls after the first one.
+     */
+    private long windowMillis = 5;
+
+    /**
+     * Maximum number of calls in one batch.
+     */
+    private int maxSize = 20;
+  }
+
+  /**
+   * Asynchronous write mode backed by a local write-ahead log.
+   */
+  @Data
+  @ToString
+  public static class Async
+  {
+    /**
+     * Accept POST/DELETE with 202 and apply them in the background.
+     */
+    private boolean enabled = false;
+
+    private String walFile = "data/operations.wal";
+
+    /**
+     * Attempts before an operation is marked as failed.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Initial delay between attempts, doubled after every failure.
+     */
+    private long retryDelayMillis = 1000;
+
+    /**
+     * Seconds the status of a completed operation stays queryable.
+     */
+    private long statusTtl = 3600;
+
+    /**
+     * Log size in bytes above which the log is compacted once nothing is
+     * pending.
+     */
+    private int compactThreshold = 1024 * 1024;
+  }
+
+  /**
+   * Adaptive concurrency limit for calls to Micetro.
+   */
+  @Data
+  @ToString
+  public static class Limiter
+  {
+    private int initialLimit = 10;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 100;
+
+    /**
+     * Calls allowed to wait for a free slot before calls are rejected.
+     */
+    private int maxQueue = 50;
+
+    private long maxWaitMillis = 5000;
+
+    /**
+     * Ratio of round-trip time to its long-term average up to which the
+     * limit keeps growing.
+     */
+    private double tolerance = 2.0;
+
+    /**
+     * Factor applied to the limit after a failed call.
+     */
+    private double backoffRatio = 0.9;
+  }
+
+  /**
+   * HTTP transport used for the JSON-RPC calls.
+   */
+  @Data
+  @ToString
+  public static class Http
+  {
+    /**
+     * {@code APACHE}: pooled Apache HttpClient 5 (HTTP/1.1 keep-alive, pool
+     * metrics). {@code JDK}: java.net.http client, negotiates HTTP/2.
+     */
+    private Transport transport = Transport.APACHE;
+
+    /**
+     * Maximum number of pooled connections to the Micetro server.
+     */
+    private int maxConnections = 20;
+
+    private long connectTimeoutMillis = 5000;
+
+    private long readTimeoutMillis = 30000;
+
+    /**
+     * Maximum wait for a free pooled connection.
+     */
+    private long connectionRequestTimeoutMillis = 5000;
+
+    /**
+     * Idle connections are closed after this time.
+     */
+    private long idleEvictMillis = 30000;
+
+    /**
+     * Connections are not reused after this lifetime, 0 for unlimited.
+     */
+    private long connectionTtlMillis = 300000;
+
+    /**
+     * Request gzip-compressed responses.
+     */
+    private boolean compression = true;
+  }
+
+  /**
+   * Suppression of repeated identical challenge requests.
+   */
+  @Data
+  @ToString
+  public static class Dedup
+  {
+    /**
+     * Seconds a completed add or remove is remembered. A repeated identical
+     * request within this window returns without calling Micetro.
+     */
+    private long windowSeconds = 30;
+
+    /**
+     * Seconds the response to a request with an {@code Idempotency-Key}
+     * header is kept for replay.
+     */
+    private long idempotencyTtl = 3600;
+
+    private long maxIdempotencyKeys = 100000;
+  }
+
+  /**
+   * Local ledger of the refs of created TXT records.
+   */
+  @Data
+  @ToString
+  public static class Ledger
+  {
+    /**
+     * Remove known records by ref instead of searching the zone.
+     */
+    private boolean enabled = true;
+
+    private String file = "data/record-ledger.log";
+
+    /**
+     * Ledger size in bytes above which it is compacted once most entries
+     * are dead.
+     */
+    private int compactThreshold = 1024 * 1024;
+  }
+
+  /**
+   * Background removal of orphaned mousetrap TXT records.
+   */
+  @Data
+  @ToString
+  public static class Sweeper
+  {
+    private boolean enabled = false;
+
+    /**
+     * Seconds between two sweeps.
+     */
+    private long intervalSeconds = 3600;
+
+    /**
+     * Seconds after which a mousetrap TXT record counts as orphaned.
+     */
+    private long maxAgeSeconds = 86400;
+
+    /**
+     * Upper bound of Micetro calls per second issued by the sweeper.
+     */
+    private double callsPerSecond = 2.0;
+
+    /**
+     * Records removed per RemoveObjects call.
+     */
+    private int batchSize = 500;
+  }
+
+  /**
+   * Circuit breakers, retries and hedging of Micetro calls.
+   */
+  @Data
+  @ToString
+  public static class Resilience
+  {
+    /**
+     * Methods that only read and may be retried and hedged freely. All
+     * other methods are writes and are retried only when the request
+     * cannot have reached Micetro.
+     */
+    private List<String> readMethods =
+      List.of("login", "GetDNSZones", "GetDNSRecords");
+
+    /**
+     * Failure rate in the window at which a breaker opens.
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * Number of recent calls the failure rate is computed over.
+     */
+    private int windowSize = 20;
+
+    /**
+     * Calls needed in the window before the breaker may open.
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * Milliseconds an open breaker rejects calls before letting trial calls
+     * through.
+     */
+    private long openMillis = 10000;
+
+    /**
+     * Successful trial calls needed to close a half-open breaker.
+     */
+    private int halfOpenCalls = 3;
+
+    private int maxRetries = 2;
+
+    /**
+     * Base and cap of the exponential backoff; the actual delay is drawn
+     * uniformly below it (full jitter).
+     */
+    private long retryBaseMillis = 100;
+
+    private long retryMaxMillis = 2000;
+
+    /**
+     * Idempotent methods that get a second, hedged request when the first
+     * is slower than the hedge percentile of recent latencies.
+     */
+    private List<String> hedgeMethods = List.of("GetDNSZones", "GetDNSRecords");
+
+    private double hedgePercentile = 0.95;
+
+    /**
+     * Hedge delay until enough latencies are known, and lower bound.
+     */
+    private long hedgeDefaultDelayMillis = 250;
+
+    private long hedgeMinDelayMillis = 20;
+  }
+
+  /**
+   * Per-call traces served at {@code /actuator/flightrecorder}.
+   */
+  @Data
+  @ToString
+  public static class FlightRecorder
+  {
+    private boolean enabled = true;
+
+    /**
+     * Most recent calls kept, rounded up to a power of two.
+     */
+    private int recent = 256;
+
+    /**
+     * Slowest calls kept.
+     */
+    private int slowest = 32;
+  }
+
+  public enum Transport
+  {
+    APACHE, JDK
+  }
 }
@@ -15,14 +15,27 @@
  */
 package l9g.mousetrap.micetro;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.servlet.http.HttpServletRequest;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import l9g.mousetrap.dns.PropagationResult;
+import l9g.mousetrap.dns.PropagationService;
+import l9g.mousetrap.jfr.AuthorizationEvent;
 import l9g.mousetrap.token.AuthenticatedBearerToken;
 import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import l9g.mousetrap.wal.OperationLog;
+import l9g.mousetrap.wal.OperationStatus;
+import l9g.mousetrap.wal.OperationType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
@@ -30,7 +43,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -46,7 +61,24 @@ public class MicetroController
 {
   private final MicetroService service;
   
-  private String normalizeZone(String zone)
+  private final ObjectProvider<OperationLog> operationLog;
+  
+  private final PropagationService propagationService;
+  
+  private final MeterRegistry meterRegistry;
+
+  private final IdempotencyRegistry idempotency;
+  
+  private static final String WAIT_PROPAGATED = "propagated";
+  
+  private static final String PROPAGATION_TIME_HEADER = "X-Propagation-Time";
+
+  /**
+   * Zone refs, as {@code ref@backend}, the change was applied to.
+   */
+  public static final String ZONE_REFS_HEADER = "X-Zone-Refs";
+  
+  static String normalizeZone(String zone)
   {
     if(zone != null &&  ! zone.endsWith("."))
     {
@@ -57,7 +89,7 @@ public class MicetroController
     return zone;
   }
   
-  private String normalizeName(String zone, String name)
+  static String normalizeName(String zone, String name)
   {
     if(zone != null && name != null)
     {
@@ -79,33 +111,112 @@ public class MicetroController
     return name;
   }
   
-  private boolean checkFqdn(BearerToken token, String zone, String name)
+  static boolean checkFqdn(BearerToken token, String zone, String name)
   {
-    List<String> permittedFqdns = token.getPermittedFqdns();
-    
-    if(permittedFqdns == null || permittedFqdns.isEmpty())
-    {
-      return true;
-    }
-    
-    boolean permitted = false;
     String fqdn = name + "." + zone;
-    for(String permittedFqdn : permittedFqdns)
+    boolean permitted = token.permitsFqdn(fqdn);
+
+    AuthorizationEvent event = new AuthorizationEvent();
+    if(event.shouldCommit())
     {
-      if(permittedFqdn.equalsIgnoreCase(fqdn))
-      {
-        permitted = true;
-        break;
-      }
+      event.check = AuthorizationEvent.FQDN;
+      event.owner = token.getOwner();
+      event.name = fqdn;
+      event.permitted = permitted;
+      event.commit();
     }
     return permitted;
-    
+  }
+  
+  private ResponseEntity<String> timed(String operation, BearerToken token,
+    Supplier<ResponseEntity<String>> handler)
+  {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String status = "exception";
+    try
+    {
+      ResponseEntity<String> response = handler.get();
+      status = Integer.toString(response.getStatusCode().value());
+      return response;
+    }
+    finally
+    {
+      sample.stop(Timer.builder("mousetrap.requests")
+        .description("End-to-end latency of add/remove requests")
+        .tag("operation", operation)
+        .tag("owner", Objects.requireNonNullElse(token.getOwner(), "unknown"))
+        .tag("status", status)
+        .register(meterRegistry));
+    }
+  }
+  
+  private ResponseEntity<String> rejected(
+    String operation, String reason, HttpStatus status)
+  {
+    meterRegistry.counter("mousetrap.requests.rejected",
+      "operation", operation, "reason", reason).increment();
+    return ResponseEntity.status(status).build();
+  }
+  
+  private ResponseEntity<String> accepted(OperationType type,
+    HttpServletRequest servletRequest, String zone, String name, String data)
+  {
+    OperationStatus status = operationLog.getObject().submit(type,
+      servletRequest.getUserPrincipal().getName(), zone, name, data);
+    log.debug("accepted operation id={}", status.id());
+    return ResponseEntity
+      .accepted()
+      .location(URI.create("/api/v1/micetro/operations/" + status.id()))
+      .body(status.id() + "\n");
+  }
+  
+  private static ResponseEntity<String> applied(List<String> zoneRefs)
+  {
+    return ResponseEntity.ok()
+      .header(ZONE_REFS_HEADER, String.join(", ", zoneRefs))
+      .body("OK\n");
+  }
+
+  private ResponseEntity<String> propagated(
+    String zone, String name, String data, List<String> zoneRefs)
+  {
+    PropagationResult result =
+      propagationService.awaitPropagation(zone, name + "." + zone, data);
+    long millis = result.elapsed().toMillis();
+    log.info("PROPAGATION: zone={}, name={}, propagated={}, time={}ms",
+      zone, name, result.propagated(), millis);
+    return ResponseEntity.ok()
+      .header(PROPAGATION_TIME_HEADER, Long.toString(millis))
+      .header(ZONE_REFS_HEADER, String.join(", ", zoneRefs))
+      .body(result.propagated()
+        ? "OK propagated in " + millis + " ms\n"
+        : "OK not propagated after " + millis + " ms, pending "
+        + result.pending() + "\n");
+  }
+  
+  private ResponseEntity<String> idempotent(String operation,
+    Map<String, String> request, String idempotencyKey,
+    HttpServletRequest servletRequest, Supplier<ResponseEntity<String>> handler)
+  {
+    return idempotency.execute(servletRequest.getUserPrincipal().getName(),
+      idempotencyKey, operation + " " + new TreeMap<>(request), handler);
   }
   
   @PostMapping
   public ResponseEntity<String> add(@RequestBody Map<String, String> request,
+    @RequestParam(name = "wait", required = false) String wait,
+    @RequestHeader(name = IdempotencyRegistry.HEADER, required = false)
+    String idempotencyKey,
     HttpServletRequest servletRequest,
     @Parameter(hidden = true) @AuthenticatedBearerToken BearerToken token)
+  {
+    return timed("add", token, () -> idempotent("add", request,
+      idempotencyKey, servletRequest,
+      () -> addRecord(request, wait, servletRequest, token)));
+  }
+  
+  private ResponseEntity<String> addRecord(Map<String, String> request,
+    String wait, HttpServletRequest servletRequest, BearerToken token)
   {
     String zone = normalizeZone(request.get("zone"));
     String name = normalizeName(zone, request.get("name"));
@@ -117,28 +228,55 @@ public class MicetroController
       log.debug("zone= '{}', name='{}'", zone, name);
     }
     
-    if(zone == null || name == null || token.isEnabled() == false)
+    if(token.isEnabled() == false)
     {
-      return ResponseEntity.badRequest().build();
+      return rejected("add", "disabled_token", HttpStatus.BAD_REQUEST);
+    }
+    
+    if(zone == null || name == null)
+    {
+      return rejected("add", "bad_request", HttpStatus.BAD_REQUEST);
     }
     
     if( ! checkFqdn(token, zone, name))
     {
       log.warn("FORBIDDEN ADD: zone={}, name={}, owner={}, ip={}",
         zone, name, token.getOwner(), servletRequest.getRemoteAddr());
-      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+      return rejected("add", "forbidden_fqdn", HttpStatus.FORBIDDEN);
     }
     
     log.info("ADD: zone={}, name={}, owner={}, ip={}",
       zone, name, token.getOwner(), servletRequest.getRemoteAddr());
-    service.addTxtRecords(token, zone, name, request.get("data"));
-    return ResponseEntity.ok("OK\n");
+    boolean waitPropagated = WAIT_PROPAGATED.equalsIgnoreCase(wait);
+    if(operationLog.getIfAvailable() != null &&  ! waitPropagated)
+    {
+      return accepted(OperationType.ADD, servletRequest, zone, name,
+        request.get("data"));
+    }
+    List<String> zoneRefs =
+      service.addTxtRecords(token, zone, name, request.get("data"));
+    // nothing was written when the zone is not permitted, nothing to await
+    if(waitPropagated &&  ! zoneRefs.isEmpty())
+    {
+      return propagated(zone, name, request.get("data"), zoneRefs);
+    }
+    return applied(zoneRefs);
   }
   
   @DeleteMapping
   public ResponseEntity<String> remove(@RequestBody Map<String, String> request,
+    @RequestHeader(name = IdempotencyRegistry.HEADER, required = false)
+    String idempotencyKey,
     HttpServletRequest servletRequest,
     @Parameter(hidden = true) @AuthenticatedBearerToken BearerToken token)
+  {
+    return timed("remove", token, () -> idempotent("remove", request,
+      idempotencyKey, servletRequest,
+      () -> removeRecord(request, servletRequest, token)));
+  }
+  
+  private ResponseEntity<String> removeRecord(Map<String, String> request,
+    HttpServletRequest servletRequest, BearerToken token)
   {
     log.trace("Bearer Token = {}", token);
     log.debug("request = {}", request);
@@ -148,22 +286,30 @@ public class MicetroController
     
     log.debug("zone= '{}', name='{}'", zone, name);
     
-    if(zone == null || name == null || token.isEnabled() == false)
+    if(token.isEnabled() == false)
+    {
+      return rejected("remove", "disabled_token", HttpStatus.BAD_REQUEST);
+    }
+    
+    if(zone == null || name == null)
     {
-      return ResponseEntity.badRequest().build();
+      return rejected("remove", "bad_request", HttpStatus.BAD_REQUEST);
     }
     
     if( ! checkFqdn(token, zone, name))
     {
       log.warn("FORBIDDEN REMOVE: zone={}, name={}, owner={}, ip={}",
         zone, name, token.getOwner(), servletRequest.getRemoteAddr());
-      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+      return rejected("remove", "forbidden_fqdn", HttpStatus.FORBIDDEN);
     }
     
     log.info("REMOVE: zone={}, name={}, owner={}, ip={}",
       zone, name, token.getOwner(), servletRequest.getRemoteAddr());
-    service.removeTxtRecords(token, zone, name);
-    return ResponseEntity.ok("OK\n");
+    if(operationLog.getIfAvailable() != null)
+    {
+      return accepted(OperationType.REMOVE, servletRequest, zone, name, null);
+    }
+    return applied(service.removeTxtRecords(token, zone, name));
   }
   
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Keeps a trace of the most recent and of the slowest Micetro calls.
+ * <p>
+ * Both sets live in fixed-size arrays that are updated without locks. The
+ * recent calls form a ring indexed by a counter. The slowest calls are
+ * guarded by a threshold, the shortest duration among them, so the common
+ * case costs one volatile read; only a call slower than that searches the
+ * array and replaces the shortest entry with a compare-and-set.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Component
+public class MicetroFlightRecorder
+{
+  private final boolean enabled;
+
+  private final AtomicReferenceArray<Trace> recent;
+
+  private final int recentMask;
+
+  private final AtomicLong recorded = new AtomicLong();
+
+  private final AtomicReferenceArray<Trace> slowest;
+
+  /**
+   * Never larger than the shortest duration in {@link #slowest}.
+   */
+  private final AtomicLong slowestThreshold = new AtomicLong(-1);
+
+  /**
+   * One Micetro call. {@code responseBytes} is {@code -1} if the call was
+   * answered as part of a coalesced batch.
+   */
+  public record Trace(Instant time, String backend, String method,
+    int requestId, long durationNanos, long responseBytes, String outcome)
+    {
+
+    public double getDurationMillis()
+    {
+      return durationNanos / 1e6;
+    }
+
+  }
+
+  public record Snapshot(long recorded, List<Trace> slowest,
+    List<Trace> recent)
+    {
+  }
+
+  public MicetroFlightRecorder(MicetroConfig micetroConfig)
+  {
+    MicetroConfig.FlightRecorder config = micetroConfig.getFlightRecorder();
+    this.enabled = config.isEnabled();
+    int size = Integer.highestOneBit(Math.max(1, config.getRecent() - 1)) << 1;
+    this.recent = new AtomicReferenceArray<>(size);
+    this.recentMask = size - 1;
+    this.slowest = new AtomicReferenceArray<>(Math.max(1, config.getSlowest()));
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  public void record(String backend, String method, int requestId,
+    long durationNanos, long responseBytes, String outcome)
+  {
+    if( ! enabled)
+    {
+      return;
+    }
+
+    Trace trace = new Trace(Instant.now(), backend, method, requestId,
+      durationNanos, responseBytes, outcome);
+    recent.set((int)(recorded.getAndIncrement() & recentMask), trace);
+
+    if(durationNanos > slowestThreshold.get())
+    {
+      rankSlowest(trace);
+    }
+  }
+
+  private void rankSlowest(Trace trace)
+  {
+    for(;;)
+    {
+      int shortestIndex = 0;
+      Trace shortest = slowest.get(0);
+      for(int i = 1; i < slowest.length() && shortest != null; i ++)
+      {
+        Trace candidate = slowest.get(i);
+        if(candidate == null
+          || candidate.durationNanos() < shortest.durationNanos())
+        {
+          shortestIndex = i;
+          shortest = candidate;
+        }
+      }
+
+      if(shortest != null && shortest.durationNanos() >= trace.durationNanos())
+      {
+        raiseThreshold(shortest.durationNanos());
+        return;
+      }
+
+      if(slowest.compareAndSet(shortestIndex, shortest, trace))
+      {
+        if(shortest != null)
+        {
+          raiseThreshold(minimumSlowest());
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Durations in {@link #slowest} only grow, so a minimum seen by any
+   * thread is a safe lower bound.
+   */
+  private void raiseThreshold(long minimum)
+  {
+    slowestThreshold.accumulateAndGet(minimum, Math :: max);
+  }
+
+  private long minimumSlowest()
+  {
+    long minimum = Long.MAX_VALUE;
+    for(int i = 0; i < slowest.length(); i ++)
+    {
+      Trace trace = slowest.get(i);
+      if(trace == null)
+      {
+        return -1;
+      }
+      minimum = Math.min(minimum, trace.durationNanos());
+    }
+    return minimum;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * The slowest calls, slowest first, and the recent calls, newest first.
+   */
+  public Snapshot snapshot()
+  {
+    List<Trace> slow = new ArrayList<>(slowest.length());
+    for(int i = 0; i < slowest.length(); i ++)
+    {
+      Trace trace = slowest.get(i);
+      if(trace != null)
+      {
+        slow.add(trace);
+      }
+    }
+    slow.sort(Comparator.comparingLong(Trace :: durationNanos).reversed());
+
+    long count = recorded.get();
+    int size = (int)Math.min(count, recent.length());
+    List<Trace> latest = new ArrayList<>(size);
+    for(long i = count - 1; i >= count - size; i --)
+    {
+      Trace trace = recent.get((int)(i & recentMask));
+      if(trace != null)
+      {
+        latest.add(trace);
+      }
+    }
+
+    return new Snapshot(count, slow, latest);
+  }
+
+  /**
+   * Forgets the slowest calls, e.g. after a known incident.
+   */
+  public void resetSlowest()
+  {
+    for(int i = 0; i < slowest.length(); i ++)
+    {
+      slowest.set(i, null);
+    }
+    slowestThreshold.set(-1);
+  }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * {@code /actuator/flightrecorder}: the slowest and the most recent Micetro
+ * calls with method, duration, response size and outcome. A DELETE forgets
+ * the slowest calls.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+@RequiredArgsConstructor
+public class MicetroFlightRecorderEndpoint
+{
+  private final MicetroFlightRecorder recorder;
+
+  @ReadOperation
+  public MicetroFlightRecorder.Snapshot traces()
+  {
+    return recorder.snapshot();
+  }
+
+  @DeleteOperation
+  public MicetroFlightRecorder.Snapshot resetSlowest()
+  {
+    recorder.resetSlowest();
+    return recorder.snapshot();
+  }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ *
+ * HTTP transport of the {@link MicetroClient}, configured under
+ * {@code micetro.http.*}.
+ * <p>
+ * The Apache transport keeps a bounded pool of keep-alive connections, so
+ * calls do not pay a TCP or TLS handshake, evicts idle connections and
+ * publishes the pool state as {@code httpcomponents.httpclient.pool.*}
+ * gauges (leased, available, pending) tagged
+ * {@code httpclient=micetro-<backend>}. The JDK transport negotiates HTTP/2
+ * and multiplexes all calls over one connection; it has no pool to report
+ * on. Every backend has its own transport, created by
+ * {@link MicetroBackends}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class MicetroHttpTransport implements Closeable
+{
+  private static final String GZIP = "gzip";
+
+  private final MicetroConfig.Http config;
+
+  private final ClientHttpRequestFactory requestFactory;
+
+  private final Closeable httpClient;
+
+  public MicetroHttpTransport(String backend, MicetroConfig micetroConfig,
+    MeterRegistry meterRegistry)
+  {
+    this.config = micetroConfig.getHttp();
+    log.info("Micetro HTTP transport for '{}': {}", backend, config);
+
+    if(config.getTransport() == MicetroConfig.Transport.JDK)
+    {
+      HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMillis()))
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+      JdkClientHttpRequestFactory factory =
+        new JdkClientHttpRequestFactory(client);
+      factory.setReadTimeout(Duration.ofMillis(config.getReadTimeoutMillis()));
+      this.httpClient = client :: close;
+      this.requestFactory = factory;
+    }
+    else
+    {
+      PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+          .setMaxConnTotal(config.getMaxConnections())
+          .setMaxConnPerRoute(config.getMaxConnections())
+          .setDefaultConnectionConfig(connectionConfig())
+          .build();
+
+      HttpClientBuilder builder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .evictExpiredConnections()
+        .evictIdleConnections(
+          TimeValue.ofMilliseconds(config.getIdleEvictMillis()))
+        .setDefaultRequestConfig(RequestConfig.custom()
+          .setConnectionRequestTimeout(Timeout.ofMilliseconds(
+            config.getConnectionRequestTimeoutMillis()))
+          .build());
+
+      // gzip/deflate responses are requested and decoded by the client
+      if( ! config.isCompression())
+      {
+        builder.disableContentCompression();
+      }
+
+      CloseableHttpClient client = builder.build();
+      new PoolingHttpClientConnectionManagerMetricsBinder(
+        connectionManager, "micetro-" + backend).bindTo(meterRegistry);
+      this.httpClient = client;
+      this.requestFactory = new HttpComponentsClientHttpRequestFactory(client);
+    }
+  }
+
+  /**
+   * Installs the transport on the {@link RestClient} of the Micetro client.
+   */
+  public RestClient.Builder apply(RestClient.Builder builder)
+  {
+    builder.requestFactory(requestFactory);
+    if(config.getTransport() == MicetroConfig.Transport.JDK
+      && config.isCompression())
+    {
+      builder.requestInterceptor(gzipInterceptor());
+    }
+    return builder;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    httpClient.close();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private ConnectionConfig connectionConfig()
+  {
+    ConnectionConfig.Builder builder = ConnectionConfig.custom()
+      .setConnectTimeout(
+        Timeout.ofMilliseconds(config.getConnectTimeoutMillis()))
+      .setSocketTimeout(Timeout.ofMilliseconds(config.getReadTimeoutMillis()))
+      .setValidateAfterInactivity(TimeValue.ofSeconds(2));
+    if(config.getConnectionTtlMillis() > 0)
+    {
+      builder.setTimeToLive(
+        TimeValue.ofMilliseconds(config.getConnectionTtlMillis()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * The JDK client neither asks for nor decodes compressed responses.
+   */
+  private static ClientHttpRequestInterceptor gzipInterceptor()
+  {
+    return (request, body, execution) ->
+    {
+      request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+      ClientHttpResponse response = execution.execute(request, body);
+      return GZIP.equalsIgnoreCase(
+        response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+        ? new GzipClientHttpResponse(response)
+        : response;
+    };
+  }
+
+  private static class GzipClientHttpResponse implements ClientHttpResponse
+  {
+    private final ClientHttpResponse delegate;
+
+    private final HttpHeaders headers;
+
+    private InputStream body;
+
+    private GzipClientHttpResponse(ClientHttpResponse delegate)
+    {
+      this.delegate = delegate;
+      this.headers = new HttpHeaders();
+      this.headers.putAll(delegate.getHeaders());
+      this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+      this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode()
+      throws IOException
+    {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText()
+      throws IOException
+    {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders()
+    {
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody()
+      throws IOException
+    {
+      if(body == null)
+      {
+        body = new GZIPInputStream(delegate.getBody());
+      }
+      return body;
+    }
+
+    @Override
+    public void close()
+    {
+      delegate.close();
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import l9g.mousetrap.micetro.api.RefPage;
+
+/**
+ *
+ * Lazy iterator over the refs of a paged Micetro list call.
+ * <p>
+ * Nothing is requested before the consumer asks for the first ref. While the
+ * consumer works through a page, the next one is already fetched in the
+ * background, so at most two pages are held in memory at any time. Closing
+ * the iterator (or the stream from {@link #stream()}) stops paging and
+ * cancels an outstanding prefetch.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public class MicetroPageIterator implements Iterator<String>, AutoCloseable
+{
+  private final IntFunction<RefPage> fetch;
+
+  private final int pageSize;
+
+  private final Executor executor;
+
+  private Iterator<String> current;
+
+  private CompletableFuture<RefPage> next;
+
+  private int offset;
+
+  private boolean lastPage;
+
+  private boolean closed;
+
+  /**
+   * @param fetch loads the page starting at the given offset
+   * @param pageSize the {@code limit} used by {@code fetch}
+   * @param executor runs the prefetch of the following page
+   */
+  public MicetroPageIterator(
+    IntFunction<RefPage> fetch, int pageSize, Executor executor)
+  {
+    this.fetch = fetch;
+    this.pageSize = pageSize;
+    this.executor = executor;
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    while(current == null ||  ! current.hasNext())
+    {
+      if(closed || lastPage)
+      {
+        return false;
+      }
+
+      RefPage page;
+      try
+      {
+        // the first page is fetched on demand, later ones were prefetched
+        page = next != null ? next.join() : fetch.apply(offset);
+      }
+      catch(CompletionException ex)
+      {
+        close();
+        throw ex.getCause() instanceof RuntimeException runtimeException
+          ? runtimeException : ex;
+      }
+
+      offset += pageSize;
+      lastPage = page.refs().size() < pageSize
+        || (page.totalResults() >= 0 && offset >= page.totalResults());
+
+      int nextOffset = offset;
+      next = lastPage ? null
+        : CompletableFuture.supplyAsync(() -> fetch.apply(nextOffset), executor);
+      current = page.refs().iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public String next()
+  {
+    if( ! hasNext())
+    {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * Stops paging; a prefetch still in flight is cancelled.
+   */
+  @Override
+  public void close()
+  {
+    closed = true;
+    if(next != null)
+    {
+      next.cancel(true);
+      next = null;
+    }
+  }
+
+  /**
+   * A sequential stream over all refs; closing the stream closes this
+   * iterator.
+   */
+  public Stream<String> stream()
+  {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+      Spliterator.ORDERED | Spliterator.NONNULL), false)
+      .onClose(this :: close);
+  }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ *
+ * Fail-fast, retries and hedging around the HTTP exchanges of the
+ * {@link MicetroClient}.
+ * <p>
+ * Every Micetro endpoint has one {@link CircuitBreaker} for reads and one
+ * for writes. Transport failures (I/O errors, timeouts) and 5xx responses
+ * count as failures; JSON-RPC errors do not, the server answered. Session
+ * errors are renewed and retried by the {@link MicetroSessionManager}.
+ * <p>
+ * Failed reads are retried up to {@code max-retries} times with full-jitter
+ * exponential backoff. Writes are only retried when the request cannot have
+ * been processed: connection failures and 502/503/504. Hedge methods get a
+ * second request once the first is slower than the configured percentile of
+ * their recent latencies; the first successful answer wins.
+ * <p>
+ * Breaker transitions are logged, counted as
+ * {@code micetro.circuit.transitions}, exposed as the
+ * {@code micetro.circuit.state} gauge (0 closed, 1 half-open, 2 open) and
+ * published as {@link MicetroCircuitEvent}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+public class MicetroResilience
+{
+  private static final String READ = "read";
+
+  private static final String WRITE = "write";
+
+  private final MicetroConfig.Resilience config;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ApplicationEventPublisher publisher;
+
+  private final Set<String> readMethods;
+
+  private final Set<String> hedgeMethods;
+
+  private final Map<String, CircuitBreaker> breakers =
+    new ConcurrentHashMap<>();
+
+  private final Map<String, LatencyTracker> latencies =
+    new ConcurrentHashMap<>();
+
+  private final ExecutorService hedgeExecutor =
+    Executors.newVirtualThreadPerTaskExecutor();
+
+  public MicetroResilience(MicetroConfig micetroConfig,
+    MeterRegistry meterRegistry, ApplicationEventPublisher publisher)
+  {
+    this.config = micetroConfig.getResilience();
+    this.meterRegistry = meterRegistry;
+    this.publisher = publisher;
+    this.readMethods = Set.copyOf(config.getReadMethods());
+    this.hedgeMethods = Set.copyOf(config.getHedgeMethods());
+  }
+
+  @PreDestroy
+  void shutdown()
+  {
+    hedgeExecutor.shutdownNow();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Runs one HTTP exchange with {@code endpoint} for {@code method} under
+   * the breaker, retry and hedging policy.
+   *
+   * @throws MicetroCircuitOpenException if the breaker is open
+   */
+  public <T> T execute(String endpoint, String method, Supplier<T> exchange)
+  {
+    boolean read = readMethods.contains(method);
+    String methodClass = read ? READ : WRITE;
+    CircuitBreaker breaker = breaker(endpoint, methodClass);
+    LatencyTracker latency =
+      latencies.computeIfAbsent(endpoint + ' ' + method,
+        key -> new LatencyTracker());
+
+    for(int attempt = 0;; attempt ++)
+    {
+      if( ! breaker.tryAcquire())
+      {
+        meterRegistry.counter("micetro.circuit.rejected", "endpoint", endpoint,
+          "class", methodClass).increment();
+        throw new MicetroCircuitOpenException("circuit open for " + methodClass
+          + " calls to " + endpoint, breaker.retryAfterSeconds());
+      }
+
+      try
+      {
+        return hedgeMethods.contains(method)
+          && breaker.getState() == CircuitBreaker.State.CLOSED
+          ? hedged(method, breaker, latency, exchange)
+          : attempt(breaker, latency, exchange);
+      }
+      catch(RuntimeException ex)
+      {
+        if(attempt >= config.getMaxRetries()
+          || Thread.currentThread().isInterrupted()
+          || ! retryable(ex, read))
+        {
+          throw ex;
+        }
+        long delay = backoffMillis(attempt);
+        log.debug("{} failed ({}), retry {} in {} ms", method, ex.toString(),
+          attempt + 1, delay);
+        meterRegistry.counter("micetro.client.retries", "method", method)
+          .increment();
+        sleep(delay);
+      }
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private CircuitBreaker breaker(String endpoint, String methodClass)
+  {
+    return breakers.computeIfAbsent(endpoint + ' ' + methodClass, key ->
+    {
+      AtomicInteger state = new AtomicInteger();
+      Gauge.builder("micetro.circuit.state", state, AtomicInteger :: get)
+        .description("0 closed, 1 half-open, 2 open")
+        .tag("endpoint", endpoint)
+        .tag("class", methodClass)
+        .register(meterRegistry);
+
+      return new CircuitBreaker(config, (from, to) ->
+      {
+        state.set(to.ordinal());
+        log.warn("circuit for {} calls to {}: {} -> {}", methodClass,
+          endpoint, from, to);
+        meterRegistry.counter("micetro.circuit.transitions",
+          "endpoint", endpoint, "class", methodClass, "to", to.name())
+          .increment();
+        publisher.publishEvent(new MicetroCircuitEvent(endpoint, methodClass,
+          from, to, Instant.now()));
+      });
+    });
+  }
+
+  /**
+   * One exchange, with its outcome recorded in the breaker. A permit for
+   * the breaker must have been acquired.
+   */
+  private static <T> T attempt(CircuitBreaker breaker, LatencyTracker latency,
+    Supplier<T> exchange)
+  {
+    long start = System.nanoTime();
+    try
+    {
+      T result = exchange.get();
+      breaker.onSuccess();
+      latency.record(System.nanoTime() - start);
+      return result;
+    }
+    catch(RuntimeException ex)
+    {
+      if(Thread.currentThread().isInterrupted())
+      {
+        // cancelled by the caller, says nothing about Micetro
+        breaker.onCancelled();
+      }
+      else if(transportFailure(ex))
+      {
+        breaker.onFailure();
+      }
+      else
+      {
+        breaker.onSuccess();
+      }
+      throw ex;
+    }
+  }
+
+  private <T> T hedged(String method, CircuitBreaker breaker,
+    LatencyTracker latency, Supplier<T> exchange)
+  {
+    CompletableFuture<T> primary = CompletableFuture.supplyAsync(
+      () -> attempt(breaker, latency, exchange), hedgeExecutor);
+
+    long delayNanos = latency.percentileNanos(config.getHedgePercentile(),
+      TimeUnit.MILLISECONDS.toNanos(config.getHedgeDefaultDelayMillis()),
+      TimeUnit.MILLISECONDS.toNanos(config.getHedgeMinDelayMillis()));
+    try
+    {
+      return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+    }
+    catch(TimeoutException ex)
+    {
+      // slower than usual, hedge below
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      primary.cancel(true);
+      throw new IllegalStateException("interrupted", ex);
+    }
+    catch(ExecutionException ex)
+    {
+      throw unwrap(ex);
+    }
+
+    if( ! breaker.tryAcquire())
+    {
+      return join(primary);
+    }
+
+    meterRegistry.counter("micetro.client.hedges", "method", method)
+      .increment();
+    CompletableFuture<T> hedge = CompletableFuture.supplyAsync(
+      () -> attempt(breaker, latency, exchange), hedgeExecutor);
+
+    CompletableFuture<T> first = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(2);
+    for(CompletableFuture<T> candidate : Arrays.asList(primary, hedge))
+    {
+      candidate.whenComplete((result, ex) ->
+      {
+        if(ex == null)
+        {
+          first.complete(result);
+        }
+        else if(pending.decrementAndGet() == 0)
+        {
+          first.completeExceptionally(ex);
+        }
+      });
+    }
+    return join(first);
+  }
+
+  private static <T> T join(CompletableFuture<T> future)
+  {
+    try
+    {
+      return future.get();
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted", ex);
+    }
+    catch(ExecutionException ex)
+    {
+      throw unwrap(ex);
+    }
+  }
+
+  private static RuntimeException unwrap(Throwable ex)
+  {
+    while((ex instanceof ExecutionException
+      || ex instanceof CompletionException)
+      && ex.getCause() != null)
+    {
+      ex = ex.getCause();
+    }
+    return ex instanceof RuntimeException runtime
+      ? runtime
+      : new IllegalStateException(ex);
+  }
+
+  private static boolean transportFailure(RuntimeException ex)
+  {
+    return ex instanceof ResourceAccessException
+      || ex instanceof HttpServerErrorException;
+  }
+
+  /**
+   * Reads are retried on every transport failure, writes only when Micetro
+   * cannot have processed the request.
+   */
+  private static boolean retryable(RuntimeException ex, boolean read)
+  {
+    if(ex instanceof HttpServerErrorException serverError)
+    {
+      int status = serverError.getStatusCode().value();
+      return read || status == 502 || status == 503 || status == 504;
+    }
+    if(ex instanceof ResourceAccessException)
+    {
+      return read || connectFailure(ex);
+    }
+    return false;
+  }
+
+  private static boolean connectFailure(Throwable ex)
+  {
+    for(Throwable cause = ex; cause != null; cause = cause.getCause())
+    {
+      if(cause instanceof ConnectException
+        || cause instanceof NoRouteToHostException
+        || cause.getClass().getSimpleName().contains("ConnectTimeout"))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long backoffMillis(int attempt)
+  {
+    long cap = Math.min(config.getRetryMaxMillis(),
+      config.getRetryBaseMillis() << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(cap + 1);
+  }
+
+  private static void sleep(long millis)
+  {
+    try
+    {
+      Thread.sleep(millis);
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted during retry backoff", ex);
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Latencies of the last 256 successful exchanges of one method. The
+   * percentile is recomputed at most every 32 samples.
+   */
+  static class LatencyTracker
+  {
+    private static final int SIZE = 256;
+
+    private static final int MIN_SAMPLES = 32;
+
+    private final long[] samples = new long[SIZE];
+
+    private int count;
+
+    private int sinceComputed;
+
+    private double computedFor = -1;
+
+    private long percentile;
+
+    synchronized void record(long nanos)
+    {
+      samples[count % SIZE] = nanos;
+      count ++;
+      sinceComputed ++;
+    }
+
+    synchronized long percentileNanos(
+      double p, long defaultNanos, long minNanos)
+    {
+      if(count < MIN_SAMPLES)
+      {
+        return defaultNanos;
+      }
+      if(computedFor != p || sinceComputed >= MIN_SAMPLES)
+      {
+        long[] sorted = Arrays.copyOf(samples, Math.min(count, SIZE));
+        Arrays.sort(sorted);
+        percentile = sorted[(int)Math.min(sorted.length - 1,
+          Math.ceil(p * sorted.length) - 1)];
+        computedFor = p;
+        sinceComputed = 0;
+      }
+      return Math.max(minNanos, percentile);
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import lombok.Getter;
+
+/**
+ *
+ * Thrown when the concurrency limit towards Micetro is reached and the wait
+ * queue is full.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Getter
+public class MicetroSaturatedException extends RuntimeException
+{
+  private static final long serialVersionUID = -2841157236472118734L;
+
+  private final long retryAfterSeconds;
+
+  public MicetroSaturatedException(String message, long retryAfterSeconds)
+  {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ *
+ * Application readiness across all Micetro backends.
+ * <p>
+ * Every {@link MicetroConcurrencyLimiter} reports here when its queue
+ * overflows and when it has drained. The application refuses traffic while
+ * at least one backend is saturated and accepts it again only once none is.
+ * One instance is shared by the limiters of {@link MicetroBackends}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+final class MicetroSaturation
+{
+  private final ApplicationEventPublisher publisher;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Set<String> saturated = new HashSet<>();
+
+  MicetroSaturation(ApplicationEventPublisher publisher)
+  {
+    this.publisher = publisher;
+  }
+
+  void saturated(String backend)
+  {
+    lock.lock();
+    try
+    {
+      if(saturated.add(backend) && saturated.size() == 1)
+      {
+        AvailabilityChangeEvent.publish(publisher, this,
+          ReadinessState.REFUSING_TRAFFIC);
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  void drained(String backend)
+  {
+    lock.lock();
+    try
+    {
+      if(saturated.remove(backend))
+      {
+        if(saturated.isEmpty())
+        {
+          AvailabilityChangeEvent.publish(publisher, this,
+            ReadinessState.ACCEPTING_TRAFFIC);
+        }
+        else
+        {
+          log.info("still refusing traffic, saturated: {}", saturated);
+        }
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+}
@@ -17,16 +17,51 @@ package l9g.mousetrap.micetro;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import l9g.mousetrap.jsonrpc.ResultExtractor;
+import l9g.mousetrap.micetro.api.AddDNSRecordParams;
+import l9g.mousetrap.jfr.AuthorizationEvent;
+import l9g.mousetrap.jfr.ZoneLookupEvent;
+import l9g.mousetrap.micetro.api.DnsRecord;
+import l9g.mousetrap.micetro.api.GetDNSRecordsParams;
+import l9g.mousetrap.micetro.api.GetDNSZonesParams;
+import l9g.mousetrap.micetro.api.MicetroResults;
+import l9g.mousetrap.micetro.api.RefPage;
+import l9g.mousetrap.micetro.api.RemoveObjectsParams;
+import l9g.mousetrap.micetro.api.SessionParams;
 import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 /**
+ *
+ * TXT record operations on the Micetro backends of a zone.
+ * <p>
+ * A zone routed to several backends is replicated: adds and removes run on
+ * all of them in parallel and fail if one of them fails. A backend that
+ * does not know the zone is skipped, the zone is only reported as not found
+ * when no backend knows it.
  *
  * @author Thorsten Ludewig (t.ludewig@gmail.com)
  */
@@ -34,43 +69,134 @@ import org.springframework.stereotype.Service;
 @Service
 public class MicetroService
 {
-  private final MicetroClient client;
+  private final MicetroBackends backends;
+
+  private final RecordLedger ledger;
+
+  private final LoadingCache<ZoneKey, List<String>> zoneRefCache;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Timer zoneLookupTimer;
+
+  /**
+   * Adds and removes completed within the dedup window, by name. A name only
+   * holds operations of the kind completed last, with their zone refs.
+   */
+  private final Cache<NameKey, Map<OperationKey, List<String>>>
+    recentOperations;
+
+  private final SingleFlight<OperationKey, List<String>> addFlight;
+
+  private final SingleFlight<OperationKey, List<String>> removeFlight;
 
-  private final MicetroConfig micetroConfig;
+  private final long requestDeadlineNanos;
 
-  private final Cache<String, String> sessionCache;
+  /**
+   * Runs page prefetches and the writes to the replicas of a zone.
+   */
+  private final ExecutorService executor =
+    Executors.newVirtualThreadPerTaskExecutor();
 
   private static final String COMMENT_TAG = "l9g-mousetrap";
 
-  private static final String CACHE_SESSION_KEY = "login";
+  static final int PAGE_SIZE = 500;
 
   /////////////////////////////////////////////////////////////////////////////
   
-  public MicetroService(MicetroClient client, MicetroConfig micetroConfig)
+  public MicetroService(MicetroBackends backends, RecordLedger ledger,
+    MicetroConfig micetroConfig, MeterRegistry meterRegistry)
   {
-    this.client = client;
-    this.micetroConfig = micetroConfig;
-    this.sessionCache = Caffeine.newBuilder()
-      .expireAfterWrite(Duration.ofSeconds(micetroConfig.getSessionCacheTtl()))
+    this.backends = backends;
+    this.ledger = ledger;
+    this.meterRegistry = meterRegistry;
+    this.requestDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(
+      micetroConfig.getRequestDeadlineMillis());
+    this.zoneLookupTimer = Timer.builder("micetro.zone.lookup")
+      .description("Latency of GetDNSZones lookups on zone cache misses")
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+
+    Duration zoneTtl = Duration.ofSeconds(micetroConfig.getZoneCacheTtl());
+    Duration negativeTtl =
+      Duration.ofSeconds(micetroConfig.getZoneCacheNegativeTtl());
+
+    // unknown zones are cached as an empty list with a shorter lifetime
+    this.zoneRefCache = Caffeine.newBuilder()
+      .expireAfter(Expiry.<ZoneKey, List<String>>writing(
+        (zone, refs) -> refs.isEmpty() ? negativeTtl : zoneTtl))
+      .refreshAfterWrite(
+        Duration.ofSeconds(micetroConfig.getZoneCacheRefresh()))
+      .recordStats()
+      .build(this :: lookupZoneRefs);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, zoneRefCache, "micetro.zoneRefs");
+
+    this.recentOperations = Caffeine.newBuilder()
+      .expireAfterWrite(
+        Duration.ofSeconds(micetroConfig.getDedup().getWindowSeconds()))
       .build();
+    this.addFlight = new SingleFlight<>(meterRegistry.counter("micetro.dedup",
+      "operation", "add", "result", "coalesced"));
+    this.removeFlight = new SingleFlight<>(meterRegistry.counter(
+      "micetro.dedup", "operation", "remove", "result", "coalesced"));
+  }
+
+  /**
+   * Zone cache key, zone refs are local to a backend.
+   */
+  private record ZoneKey(MicetroBackend backend, String zone)
+    {
+  }
+
+  /**
+   * Identity of an add or remove for deduplication. DNS names compare
+   * case-insensitively, TXT data does not.
+   */
+  private record OperationKey(
+    String operation, String zone, String name, String data)
+    {
+
+    static OperationKey add(String zone, String name, String data)
+    {
+      return new OperationKey("add", zone.toLowerCase(Locale.ROOT),
+        name.toLowerCase(Locale.ROOT), data);
+    }
+
+    static OperationKey remove(String zone, String name)
+    {
+      return new OperationKey("remove", zone.toLowerCase(Locale.ROOT),
+        name.toLowerCase(Locale.ROOT), null);
+    }
+
+    NameKey nameKey()
+    {
+      return new NameKey(zone, name);
+    }
+
+  }
+
+  /**
+   * A DNS name in a zone, both lower case.
+   */
+  private record NameKey(String zone, String name)
+    {
   }
 
   /////////////////////////////////////////////////////////////////////////////
 
-  private boolean zonePermitted(BearerToken token, String zone)
+  static boolean zonePermitted(BearerToken token, String zone)
   {
-    boolean permitted = false;
+    boolean permitted = token != null && token.permitsZone(zone);
 
-    if(token != null && zone != null)
+    AuthorizationEvent event = new AuthorizationEvent();
+    if(event.shouldCommit())
     {
-      for(String z : token.getPermittedZones())
-      {
-        if(z.equalsIgnoreCase(zone))
-        {
-          permitted = true;
-          break;
-        }
-      }
+      event.check = AuthorizationEvent.ZONE;
+      event.owner = token != null ? token.getOwner() : null;
+      event.name = zone;
+      event.permitted = permitted;
+      event.commit();
     }
 
     if( ! permitted)
@@ -80,169 +206,751 @@ public class MicetroService
     return permitted;
   }
 
-  private String login()
+  private static <P extends SessionParams<P>, R> R call(
+    MicetroBackend backend, String method, P template,
+    ResultExtractor<R> extractor)
   {
-    log.debug("login");
-    return sessionCache.get(CACHE_SESSION_KEY, _key ->
+    return backend.sessionManager().execute(session -> backend.client()
+      .call(method, template.withSession(session), extractor));
+  }
+
+  /**
+   * Sends one JSON-RPC batch for all {@code templates}. A session error on any
+   * call fails the whole batch so the session manager retries it once with a
+   * fresh session.
+   */
+  private static <P extends SessionParams<P>, R> List<BatchResult<R>>
+    callBatch(MicetroBackend backend, String method, List<P> templates,
+      ResultExtractor<R> extractor)
+  {
+    MicetroSessionManager sessionManager = backend.sessionManager();
+    return sessionManager.execute(session ->
     {
-      log.debug("login - cache miss");
-      Map<String, Object> params = new LinkedHashMap<>();
-      params.put("server", micetroConfig.getServer());
-      params.put("loginName", micetroConfig.getLoginName());
-      params.put("password", micetroConfig.getPassword());
-      params.put("unauthorizedAsForbidden", true);
-      LinkedHashMap<String, Object> response = client.call("login", params);
-      return (String)response.get("session");
+      List<BatchResult<R>> results = backend.client().callBatch(method,
+        templates.stream().map(t -> t.withSession(session)).toList(),
+        extractor);
+      for(BatchResult<R> result : results)
+      {
+        if(result.error() != null
+          && sessionManager.isSessionError(result.error()))
+        {
+          throw result.error();
+        }
+      }
+      return results;
     });
   }
 
-  private List<String> findZoneRefs(String zone, String session)
+  private List<String> lookupZoneRefs(ZoneKey key)
   {
-    List<String> result = null;
+    return zoneLookupTimer.record(
+      () -> doLookupZoneRefs(key.backend(), key.zone()));
+  }
 
-    Map<String, Object> params = new LinkedHashMap<>();
-    params.put("filter", "type=primary name=" + zone);
-    params.put("limit", 500);
-    params.put("offset", 0);
-    params.put("sortBy", "natural");
-    params.put("sortOrder", "Ascending");
-    params.put("session", session);
+  private List<String> doLookupZoneRefs(MicetroBackend backend, String zone)
+  {
+    log.debug("zone lookup on '{}' - cache miss: {}", backend, zone);
+    ZoneLookupEvent event = new ZoneLookupEvent();
+    event.begin();
+    GetDNSZonesParams template = GetDNSZonesParams.primaryZone(zone, PAGE_SIZE);
+    try(MicetroPageIterator zoneRefs = new MicetroPageIterator(
+      offset -> call(backend, "GetDNSZones", template.withOffset(offset),
+        MicetroResults.DNS_ZONES), PAGE_SIZE, executor))
+    {
+      List<String> result = zoneRefs.stream().toList();
+      if(event.shouldCommit())
+      {
+        event.backend = backend.name();
+        event.zone = zone;
+        event.zoneRefs = result.size();
+        event.commit();
+      }
+      return result;
+    }
+  }
 
-    LinkedHashMap<String, Object> response = client.call(
-      "GetDNSZones", params);
+  List<String> findZoneRefs(MicetroBackend backend, String zone)
+  {
+    List<String> zoneRefs = zoneRefCache.get(
+      new ZoneKey(backend, zone.toLowerCase(Locale.ROOT)));
+    log.debug("zoneRefs@{}={}", backend, zoneRefs);
 
-    List<Map<String, Object>> list = (List)response.get("dnsZones");
+    if(zoneRefs.isEmpty())
+    {
+      throw new ZoneNotFoundException(zone);
+    }
+
+    return zoneRefs;
+  }
+
+  private static GetDNSRecordsParams txtRecordsQuery(
+    String dnsZoneRef, String name)
+  {
+    return GetDNSRecordsParams.of(dnsZoneRef,
+      "type=TXT comment=" + COMMENT_TAG + " name=" + name, PAGE_SIZE);
+  }
+
+  /**
+   * Removes all mousetrap TXT records named {@code name} from a zone.
+   * <p>
+   * Every removal shifts the remaining matches to the front, so the first
+   * page is read again and removed until a page comes back short. Memory use
+   * stays at one page however many records match.
+   */
+  private static int removeTxtDnsRecords(
+    MicetroBackend backend, String dnsZoneRef, String name)
+  {
+    GetDNSRecordsParams query = txtRecordsQuery(dnsZoneRef, name);
+    int removed = 0;
+    List<String> previous = List.of();
 
-    if(list.size() > 0)
+    while(true)
     {
-      result = new ArrayList<>();
-      for(Map<String, Object> map : list)
+      RefPage page = call(backend, "GetDNSRecords", query,
+        MicetroResults.DNS_RECORDS);
+      List<String> refs = page.refs();
+      if(refs.isEmpty() || refs.equals(previous))
       {
-        String ref = (String)map.get("ref");
-        if(ref != null)
-        {
-          result.add(ref);
-        }
+        break;
       }
+
+      log.debug("objRefs={}", refs);
+      removeObjects(backend, refs);
+      removed += refs.size();
+
+      if(refs.size() < PAGE_SIZE)
+      {
+        break;
+      }
+      previous = refs;
+    }
+
+    return removed;
+  }
+
+  private static String addTxtDnsRecord(
+    MicetroBackend backend, String dnsZoneRef, String name, String data)
+  {
+    String ref = call(backend, "AddDNSRecord",
+      addTxtRecordParams(dnsZoneRef, name, data),
+      MicetroResults.REF_OF_CREATED);
+    log.debug("added ref={}@{}", ref, backend);
+    return ref;
+  }
+
+  /**
+   * One page of all mousetrap TXT records in a zone ref.
+   */
+  RefPage findTaggedTxtRecords(
+    MicetroBackend backend, String dnsZoneRef, int offset)
+  {
+    return call(backend, "GetDNSRecords", GetDNSRecordsParams.of(dnsZoneRef,
+      "type=TXT comment=" + COMMENT_TAG, PAGE_SIZE).withOffset(offset),
+      MicetroResults.DNS_RECORDS);
+  }
+
+  /**
+   * Removes records by ref and drops them from the ledger.
+   */
+  void removeRecords(MicetroBackend backend, List<String> objRefs)
+  {
+    removeObjects(backend, objRefs);
+    ledger.forget(backend.name(), objRefs);
+  }
+
+  private static AddDNSRecordParams addTxtRecordParams(
+    String dnsZoneRef, String name, String data)
+  {
+    return new AddDNSRecordParams(
+      new DnsRecord(name, "TXT", "0", data, COMMENT_TAG, true, dnsZoneRef));
+  }
+
+  private static void removeObjects(
+    MicetroBackend backend, List<String> objRefs)
+  {
+    call(backend, "RemoveObjects", new RemoveObjectsParams(objRefs),
+      MicetroResults.NONE);
+  }
+
+  private static void removeObjectsChunked(
+    MicetroBackend backend, List<String> objRefs)
+  {
+    for(int from = 0; from < objRefs.size(); from += PAGE_SIZE)
+    {
+      removeObjects(backend, objRefs.subList(from,
+        Math.min(from + PAGE_SIZE, objRefs.size())));
+    }
+  }
+
+  private void countLedger(String result, int amount)
+  {
+    meterRegistry.counter("micetro.ledger", "result", result)
+      .increment(amount);
+  }
+
+  /**
+   * {@code true} if the ledger holds a record on every zone ref of the zone.
+   * A zone ref without one may still carry a record the ledger does not know,
+   * e.g. one created before the ledger, by another instance or by an
+   * AddDNSRecord that returned no ref, and only a search finds it.
+   */
+  private static boolean coversZoneRefs(
+    List<LedgerEntry> known, List<String> zoneRefs)
+  {
+    Set<String> covered = new HashSet<>();
+    known.forEach(entry -> covered.add(entry.dnsZoneRef()));
+    return covered.containsAll(zoneRefs);
+  }
+
+  /**
+   * Removes the records the ledger knows for {@code name} with RemoveObjects
+   * alone, without searching the zone. Only taken if the ledger has a record
+   * on every (cached) zone ref of the zone.
+   *
+   * @return the zone refs the records were removed from, or {@code null} on
+   * a ledger miss, when the ledger does not cover every zone ref or when
+   * Micetro rejects one of the refs
+   */
+  private ZoneRefFanOut.Outcome removeKnownRecords(
+    MicetroBackend backend, String zone, String name)
+  {
+    List<LedgerEntry> known = ledger.find(backend.name(), zone, name);
+    if(known.isEmpty())
+    {
+      countLedger("miss", 1);
+      return null;
+    }
+    if( ! coversZoneRefs(known, findZoneRefs(backend, zone)))
+    {
+      countLedger("partial", 1);
+      return null;
+    }
+
+    List<String> refs = known.stream().map(LedgerEntry :: ref).toList();
+    try
+    {
+      removeObjectsChunked(backend, refs);
+    }
+    catch(MicetroApiException ex)
+    {
+      log.info("ledger refs for '{}' in '{}' rejected by '{}' ({}), "
+        + "searching zone", name, zone, backend, ex.getMessage());
+      countLedger("stale", 1);
+      return null;
     }
 
-    return result;
+    ledger.forget(backend.name(), refs);
+    countLedger("hit", 1);
+    return ZoneRefFanOut.Outcome.success(known.stream()
+      .map(entry -> ZoneRefFanOut.qualify(backend, entry.dnsZoneRef()))
+      .distinct().toList(), refs.size());
   }
 
-  private List<String> findTxtDnsRecord(String session, String dnsZoneRef, String name)
+  /**
+   * @return the zone refs of the operation if it completed within the dedup
+   * window, otherwise {@code null}
+   */
+  private List<String> recentlyCompleted(OperationKey key)
   {
-    List<String> result = null;
+    Map<OperationKey, List<String>> recent =
+      recentOperations.getIfPresent(key.nameKey());
+    List<String> zoneRefs = recent != null ? recent.get(key) : null;
+    if(zoneRefs != null)
+    {
+      log.debug("dedup: {} completed recently", key);
+      meterRegistry.counter("micetro.dedup", "operation", key.operation(),
+        "result", "recent").increment();
+    }
+    return zoneRefs;
+  }
 
-    Map<String, Object> params = new LinkedHashMap<>();
-    params.put("dnsZoneRef", dnsZoneRef);
-    params.put("filter", "type=TXT comment=" + COMMENT_TAG + " name=" + name);
-    params.put("includeMetaRecords", true);
-    params.put("limit", 500);
-    params.put("offset", 0);
-    params.put("syncZone", false);
-    params.put("session", session);
+  /**
+   * Remembers a completed operation and forgets the opposite ones for the
+   * same name, so an add after a remove (or vice versa) is applied again.
+   * Adds of different data for one name are kept side by side.
+   */
+  private void completed(OperationKey key, List<String> zoneRefs)
+  {
+    recentOperations.asMap().compute(key.nameKey(), (name, recent) ->
+    {
+      if(recent == null || recent.isEmpty() || ! recent.keySet().iterator()
+        .next().operation().equals(key.operation()))
+      {
+        return Map.of(key, zoneRefs);
+      }
+      Map<OperationKey, List<String>> updated = new HashMap<>(recent);
+      updated.put(key, zoneRefs);
+      return Map.copyOf(updated);
+    });
+  }
 
-    LinkedHashMap<String, Object> response = client.call(
-      "GetDNSRecords", params);
+  private long deadline()
+  {
+    return System.nanoTime() + requestDeadlineNanos;
+  }
 
-    List<Map<String, Object>> list = (List)response.get("dnsRecords");
+  private void countRecords(
+    MicetroBackend backend, String operation, String zone, int amount)
+  {
+    if(amount > 0)
+    {
+      meterRegistry.counter("micetro.records", "backend", backend.name(),
+        "operation", operation, "zone", zone).increment(amount);
+    }
+  }
 
-    if(list.size() > 0)
+  /**
+   * Runs {@code operation} on every backend of {@code zone}, in parallel on
+   * virtual threads when the zone is replicated. All backends run to the
+   * end, so a failing replica does not leave the others half done.
+   *
+   * @return the results of the backends that know the zone
+   *
+   * @throws ZoneNotFoundException if no backend of the zone knows it
+   */
+  private <T> List<T> onReplicas(
+    String zone, Function<MicetroBackend, T> operation)
+  {
+    List<MicetroBackend> replicas = backends.route(zone);
+    if(replicas.size() == 1)
     {
-      result = new ArrayList<>();
-      for(Map<String, Object> map : list)
+      return List.of(operation.apply(replicas.get(0)));
+    }
+
+    List<Future<T>> futures = replicas.stream()
+      .map(backend -> executor.submit(() -> operation.apply(backend)))
+      .toList();
+
+    List<T> results = new ArrayList<>(replicas.size());
+    RuntimeException failure = null;
+    ZoneNotFoundException notFound = null;
+    for(int i = 0; i < futures.size(); i ++)
+    {
+      try
+      {
+        results.add(futures.get(i).get());
+      }
+      catch(InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+        futures.forEach(future -> future.cancel(true));
+        throw new IllegalStateException("interrupted", ex);
+      }
+      catch(ExecutionException ex)
       {
-        String ref = (String)map.get("ref");
-        if(ref != null)
+        if(ex.getCause() instanceof ZoneNotFoundException zoneNotFound)
         {
-          result.add(ref);
+          log.warn("zone '{}' not found on backend '{}'", zone,
+            replicas.get(i));
+          notFound = zoneNotFound;
+          continue;
+        }
+        RuntimeException cause = ex.getCause() instanceof RuntimeException rt
+          ? rt : new IllegalStateException(ex.getCause());
+        log.warn("{} on backend '{}' failed: {}", zone, replicas.get(i),
+          cause.getMessage());
+        if(failure == null)
+        {
+          failure = cause;
+        }
+        else
+        {
+          failure.addSuppressed(cause);
         }
       }
     }
 
-    return result;
+    if(failure != null)
+    {
+      throw failure;
+    }
+    if(results.isEmpty())
+    {
+      throw notFound;
+    }
+    return results;
   }
 
-  private void addTxtDnsRecord(String session, String dnsZoneRef, String name, String data)
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Adds the TXT record to every zone ref of {@code zone} on each of its
+   * backends, all zone refs at once (see {@link ZoneRefFanOut}). Concurrent
+   * identical calls share one Micetro operation, and a repeat within the
+   * dedup window returns without calling Micetro at all.
+   *
+   * @return the zone refs, as {@code ref@backend}, holding the record
+   *
+   * @throws ZoneRefsFailedException if a zone ref failed or the request
+   * deadline passed
+   */
+  public List<String> addTxtRecords(
+    BearerToken token, String zone, String name, String data)
   {
-    Map<String, Object> dnsRecord = new LinkedHashMap<>();
-    dnsRecord.put("name", name);
-    dnsRecord.put("type", "TXT");
-    dnsRecord.put("ttl", "0");
-    dnsRecord.put("data", data);
-    dnsRecord.put("comment", COMMENT_TAG);
-    dnsRecord.put("enabled", true);
-    dnsRecord.put("dnsZoneRef", dnsZoneRef);
+    log.debug("ADD: zone={}, name={}", zone, name);
+    if( ! zonePermitted(token, zone))
+    {
+      return List.of();
+    }
 
-    Map<String, Object> params = new LinkedHashMap<>();
-    params.put("dnsRecord", dnsRecord);
-    params.put("forceOverrideOfNamingConflictCheck", true);
-    params.put("session", session);
+    OperationKey key = OperationKey.add(zone, name, data);
+    List<String> recent = recentlyCompleted(key);
+    return recent != null ? recent : addFlight.execute(key, () ->
+    {
+      List<String> again = recentlyCompleted(key);
+      return again != null ? again : applyAdd(key, zone, name, data);
+    });
+  }
 
-    LinkedHashMap<String, Object> response = client.call(
-      "AddDNSRecord", params);
+  private List<String> applyAdd(
+    OperationKey key, String zone, String name, String data)
+  {
+    long deadline = deadline();
+    List<String> zoneRefs = ZoneRefFanOut.Outcome.merge(onReplicas(zone,
+      backend -> add(backend, zone, name, data, deadline))).orThrow();
+    completed(key, zoneRefs);
+    return zoneRefs;
+  }
 
-    log.debug("{}", response);
+  private ZoneRefFanOut.Outcome add(MicetroBackend backend, String zone,
+    String name, String data, long deadline)
+  {
+    ZoneRefFanOut.Outcome outcome = ZoneRefFanOut.run(executor, backend,
+      findZoneRefs(backend, zone), deadline, ref ->
+    {
+      ledger.recorded(backend.name(), zone, name, data, ref,
+        addTxtDnsRecord(backend, ref, name, data));
+      return 1;
+    });
+    countRecords(backend, "add", zone, outcome.records());
+    return outcome;
   }
 
-  private void removeObjects(String session, List<String> objRefs)
+  /**
+   * Removes the mousetrap TXT records named {@code name} from every zone ref
+   * of {@code zone}, deduplicated like {@link #addTxtRecords}. Records found
+   * in the {@link RecordLedger} are removed by ref; on a ledger miss all zone
+   * refs are searched at once.
+   *
+   * @return the zone refs, as {@code ref@backend}, cleared of the record
+   *
+   * @throws ZoneRefsFailedException if a zone ref failed or the request
+   * deadline passed
+   */
+  public List<String> removeTxtRecords(
+    BearerToken token, String zone, String name)
   {
-    Map<String, Object> params = new LinkedHashMap<>();
-    params.put("objRefs", objRefs);
-    params.put("session", session);
+    log.debug("REMOVE: zone={}, name={}", zone, name);
+    if( ! zonePermitted(token, zone))
+    {
+      return List.of();
+    }
 
-    LinkedHashMap<String, Object> response = client.call(
-      "RemoveObjects", params);
+    OperationKey key = OperationKey.remove(zone, name);
+    List<String> recent = recentlyCompleted(key);
+    return recent != null ? recent : removeFlight.execute(key, () ->
+    {
+      List<String> again = recentlyCompleted(key);
+      return again != null ? again : applyRemove(key, zone, name);
+    });
+  }
 
-    log.debug("{}", response);
+  private List<String> applyRemove(
+    OperationKey key, String zone, String name)
+  {
+    long deadline = deadline();
+    List<String> zoneRefs = ZoneRefFanOut.Outcome.merge(onReplicas(zone,
+      backend -> remove(backend, zone, name, deadline))).orThrow();
+    completed(key, zoneRefs);
+    return zoneRefs;
   }
 
-  /////////////////////////////////////////////////////////////////////////////
+  private ZoneRefFanOut.Outcome remove(
+    MicetroBackend backend, String zone, String name, long deadline)
+  {
+    ZoneRefFanOut.Outcome outcome = removeKnownRecords(backend, zone, name);
+    if(outcome == null)
+    {
+      outcome = ZoneRefFanOut.run(executor, backend,
+        findZoneRefs(backend, zone), deadline,
+        ref -> removeTxtDnsRecords(backend, ref, name));
+      if(outcome.error() == null)
+      {
+        ledger.forget(backend.name(), zone, name);
+      }
+    }
+    countRecords(backend, "remove", zone, outcome.records());
+    return outcome;
+  }
 
-  
-  public void addTxtRecords(
-    BearerToken token, String zone, String name, String data)
+  /**
+   * Adds the TXT records of all {@code entries} to one zone. On every
+   * backend the zone is resolved once and every zone ref receives a single
+   * AddDNSRecord batch.
+   *
+   * @return one result per entry holding the number of records added
+   */
+  public List<BatchResult<Integer>> addTxtRecordsBatch(
+    BearerToken token, String zone, List<BatchEntry> entries)
   {
-    log.debug("ADD: zone={}, name={}", zone, name);
-    if(zonePermitted(token, zone))
+    log.debug("ADD BATCH: zone={}, entries={}", zone, entries.size());
+    checkZonePermitted(token, zone);
+
+    List<BatchResult<Integer>> results =
+      merge(onReplicas(zone, backend -> addBatch(backend, zone, entries)));
+    for(int i = 0; i < entries.size(); i ++)
     {
-      String session = login();
-      log.debug("session={}", session);
-      List<String> zoneRefs = findZoneRefs(zone, session);
-      log.debug("{}", zoneRefs);
-      for(String ref : zoneRefs)
+      if(results.get(i).isSuccess())
       {
-        addTxtDnsRecord(session, ref, name, data);
+        BatchEntry entry = entries.get(i);
+        completed(OperationKey.add(zone, entry.name(), entry.data()),
+          List.of());
       }
     }
+    return results;
   }
 
-  public void removeTxtRecords(
-    BearerToken token, String zone, String name)
+  private List<BatchResult<Integer>> addBatch(
+    MicetroBackend backend, String zone, List<BatchEntry> entries)
   {
-    log.debug("REMOVE: zone={}, name={}", zone, name);
+    List<String> zoneRefs = findZoneRefs(backend, zone);
+    int[] added = new int[entries.size()];
+    MicetroApiException[] errors = new MicetroApiException[entries.size()];
 
-    if(zonePermitted(token, zone))
+    for(String ref : zoneRefs)
     {
-      String session = login();
-      log.debug("session={}", session);
-      List<String> zoneRefs = findZoneRefs(zone, session);
-      log.debug("{}", zoneRefs);
-      List<String> objRefs = new ArrayList<>();
-      for(String ref : zoneRefs)
+      List<BatchResult<String>> results = callBatch(backend, "AddDNSRecord",
+        entries.stream().map(
+          e -> addTxtRecordParams(ref, e.name(), e.data())).toList(),
+        MicetroResults.REF_OF_CREATED);
+
+      for(int i = 0; i < results.size(); i ++)
       {
-        List<String> records = findTxtDnsRecord(session, ref, name);
-        if(records != null && records.size() > 0)
+        BatchResult<String> result = results.get(i);
+        if(result.isSuccess())
+        {
+          BatchEntry entry = entries.get(i);
+          ledger.recorded(backend.name(), zone, entry.name(), entry.data(),
+            ref, result.result());
+          added[i] ++;
+        }
+        else if(errors[i] == null)
         {
-          objRefs.addAll(records);
+          errors[i] = result.error();
         }
       }
-      log.debug("objRefs={}", objRefs);
-      if(objRefs.size() > 0)
+    }
+
+    countRecords(backend, "add", zone, IntStream.of(added).sum());
+    return entryResults(added, errors);
+  }
+
+  /**
+   * Removes the mousetrap TXT records of all {@code entries} from one zone.
+   * Names the {@link RecordLedger} knows on every zone ref are removed by
+   * ref. For the
+   * other names each zone ref gets a single GetDNSRecords batch and the
+   * matches are deleted with as few RemoveObjects calls as possible; names
+   * with more matches than fit on one page fall back to
+   * {@link #removeTxtDnsRecords}.
+   *
+   * @return one result per entry holding the number of records removed
+   */
+  public List<BatchResult<Integer>> removeTxtRecordsBatch(
+    BearerToken token, String zone, List<BatchEntry> entries)
+  {
+    log.debug("REMOVE BATCH: zone={}, entries={}", zone, entries.size());
+    checkZonePermitted(token, zone);
+
+    List<BatchResult<Integer>> results =
+      merge(onReplicas(zone, backend -> removeBatch(backend, zone, entries)));
+    for(int i = 0; i < entries.size(); i ++)
+    {
+      if(results.get(i).isSuccess())
+      {
+        completed(OperationKey.remove(zone, entries.get(i).name()),
+          List.of());
+      }
+    }
+    return results;
+  }
+
+  private List<BatchResult<Integer>> removeBatch(
+    MicetroBackend backend, String zone, List<BatchEntry> entries)
+  {
+    int[] removed = new int[entries.size()];
+    MicetroApiException[] errors = new MicetroApiException[entries.size()];
+
+    List<Integer> hits = new ArrayList<>();
+    List<Integer> misses = new ArrayList<>();
+    Set<String> knownRefs = new LinkedHashSet<>();
+    List<String> zoneRefs = findZoneRefs(backend, zone);
+    int partial = 0;
+    for(int i = 0; i < entries.size(); i ++)
+    {
+      List<LedgerEntry> known =
+        ledger.find(backend.name(), zone, entries.get(i).name());
+      if(known.isEmpty())
+      {
+        misses.add(i);
+      }
+      else if( ! coversZoneRefs(known, zoneRefs))
       {
-        removeObjects(session, objRefs);
+        // the search also removes the known records and forgets them
+        partial ++;
+        misses.add(i);
       }
+      else
+      {
+        hits.add(i);
+        removed[i] = known.size();
+        known.forEach(entry -> knownRefs.add(entry.ref()));
+      }
+    }
+
+    if( ! knownRefs.isEmpty())
+    {
+      try
+      {
+        removeObjectsChunked(backend, List.copyOf(knownRefs));
+        ledger.forget(backend.name(), knownRefs);
+        countLedger("hit", hits.size());
+      }
+      catch(MicetroApiException ex)
+      {
+        log.info("ledger refs in '{}' rejected by '{}' ({}), searching zone",
+          zone, backend, ex.getMessage());
+        countLedger("stale", hits.size());
+        for(int i : hits)
+        {
+          removed[i] = 0;
+          misses.add(i);
+        }
+      }
+    }
+
+    if(partial > 0)
+    {
+      countLedger("partial", partial);
+    }
+    if( ! misses.isEmpty())
+    {
+      countLedger("miss", misses.size() - partial);
+      searchAndRemove(backend, zone, entries, misses, removed, errors);
+    }
+
+    countRecords(backend, "remove", zone, IntStream.of(removed).sum());
+    return entryResults(removed, errors);
+  }
+
+  /**
+   * Search path of {@link #removeTxtRecordsBatch} for the entries at
+   * {@code indexes}.
+   */
+  private void searchAndRemove(MicetroBackend backend, String zone,
+    List<BatchEntry> entries, List<Integer> indexes, int[] removed,
+    MicetroApiException[] errors)
+  {
+    for(String ref : findZoneRefs(backend, zone))
+    {
+      List<BatchResult<RefPage>> pages = callBatch(backend, "GetDNSRecords",
+        indexes.stream()
+          .map(i -> txtRecordsQuery(ref, entries.get(i).name())).toList(),
+        MicetroResults.DNS_RECORDS);
+
+      Set<String> objRefs = new LinkedHashSet<>();
+      Set<String> overflow = new LinkedHashSet<>();
+      for(int p = 0; p < pages.size(); p ++)
+      {
+        int i = indexes.get(p);
+        BatchResult<RefPage> page = pages.get(p);
+        if( ! page.isSuccess())
+        {
+          errors[i] = errors[i] == null ? page.error() : errors[i];
+          continue;
+        }
+        List<String> refs = page.result().refs();
+        objRefs.addAll(refs);
+        removed[i] += refs.size();
+        if(refs.size() >= PAGE_SIZE)
+        {
+          overflow.add(entries.get(i).name());
+        }
+      }
+
+      removeObjectsChunked(backend, List.copyOf(objRefs));
+
+      for(String name : overflow)
+      {
+        int more = removeTxtDnsRecords(backend, ref, name);
+        for(int i : indexes)
+        {
+          if(entries.get(i).name().equals(name))
+          {
+            removed[i] += more;
+          }
+        }
+      }
+    }
+
+    for(int i : indexes)
+    {
+      ledger.forget(backend.name(), zone, entries.get(i).name());
+    }
+  }
+
+  private static void checkZonePermitted(BearerToken token, String zone)
+  {
+    if( ! zonePermitted(token, zone))
+    {
+      throw new AccessDeniedException("zone not permitted: " + zone);
+    }
+  }
+
+  /**
+   * Combines the per-entry results of the replicas of a zone: the counts
+   * are added up, an entry fails if it failed on any replica.
+   */
+  private static List<BatchResult<Integer>> merge(
+    List<List<BatchResult<Integer>>> replicas)
+  {
+    if(replicas.size() == 1)
+    {
+      return replicas.get(0);
+    }
+
+    int size = replicas.get(0).size();
+    int[] counts = new int[size];
+    MicetroApiException[] errors = new MicetroApiException[size];
+    for(List<BatchResult<Integer>> results : replicas)
+    {
+      for(int i = 0; i < size; i ++)
+      {
+        BatchResult<Integer> result = results.get(i);
+        if(result.isSuccess())
+        {
+          counts[i] += result.result();
+        }
+        else if(errors[i] == null)
+        {
+          errors[i] = result.error();
+        }
+      }
+    }
+    return entryResults(counts, errors);
+  }
+
+  private static List<BatchResult<Integer>> entryResults(
+    int[] counts, MicetroApiException[] errors)
+  {
+    List<BatchResult<Integer>> results = new ArrayList<>(counts.length);
+    for(int i = 0; i < counts.length; i ++)
+    {
+      results.add(errors[i] == null
+        ? new BatchResult<>(counts[i], null)
+        : new BatchResult<>(null, errors[i]));
     }
+    return results;
   }
 
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import l9g.mousetrap.jfr.MicetroLoginEvent;
+import l9g.mousetrap.jfr.SessionCacheMissEvent;
+import l9g.mousetrap.micetro.api.LoginParams;
+import l9g.mousetrap.micetro.api.MicetroResults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Keeps the Micetro session of one backend alive.
+ * <p>
+ * The session is renewed in the background (driven by
+ * {@link MicetroBackends}) before {@code session-cache-ttl} runs out, so
+ * requests normally never wait on a {@code login} round-trip.
+ * If Micetro rejects a session early, {@link #execute(Function)} drops it,
+ * logs in once more and retries the failed call.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class MicetroSessionManager
+{
+  private final String backend;
+
+  private final MicetroConfig.Backend connection;
+
+  private final MicetroClient client;
+
+  private final MicetroConfig micetroConfig;
+
+  private final AtomicReference<Session> current = new AtomicReference<>();
+
+  /**
+   * Not a monitor: logins run on the virtual threads of replicated writes
+   * and must not pin their carrier during the round-trip.
+   */
+  private final ReentrantLock loginLock = new ReentrantLock();
+
+  private final MeterRegistry meterRegistry;
+
+  private final Counter sessionHits;
+
+  private final Counter sessionMisses;
+
+  private record Session(String id, Instant created)
+    {
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  public MicetroSessionManager(String backend,
+    MicetroConfig.Backend connection, MicetroClient client,
+    MicetroConfig micetroConfig, MeterRegistry meterRegistry)
+  {
+    this.backend = backend;
+    this.connection = connection;
+    this.client = client;
+    this.micetroConfig = micetroConfig;
+    this.meterRegistry = meterRegistry;
+    this.sessionHits = meterRegistry.counter(
+      "micetro.session.requests", "backend", backend, "result", "hit");
+    this.sessionMisses = meterRegistry.counter(
+      "micetro.session.requests", "backend", backend, "result", "miss");
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private Duration ttl()
+  {
+    return Duration.ofSeconds(micetroConfig.getSessionCacheTtl());
+  }
+
+  private boolean isExpired(Session session, Duration margin)
+  {
+    return session == null
+      || Instant.now().isAfter(session.created().plus(ttl()).minus(margin));
+  }
+
+  private Session login(Session stale)
+  {
+    loginLock.lock();
+    try
+    {
+      Session session = current.get();
+
+      // another thread already replaced the stale session
+      if(session != stale && !isExpired(session, Duration.ZERO))
+      {
+        return session;
+      }
+
+      log.debug("login to '{}'", backend);
+      LoginParams params = new LoginParams(connection.getServer(),
+        connection.getLoginName(), connection.getPassword(), true);
+      String sessionId;
+      MicetroLoginEvent event = new MicetroLoginEvent();
+      event.begin();
+      try
+      {
+        sessionId = client.call("login", params, MicetroResults.SESSION);
+      }
+      catch(RuntimeException ex)
+      {
+        meterRegistry.counter("micetro.logins", "backend", backend,
+          "outcome", "failure").increment();
+        commit(event, false);
+        throw ex;
+      }
+      meterRegistry.counter("micetro.logins", "backend", backend,
+        "outcome", "success").increment();
+      commit(event, true);
+
+      session = new Session(sessionId, Instant.now());
+      current.set(session);
+      return session;
+    }
+    finally
+    {
+      loginLock.unlock();
+    }
+  }
+
+  private void commit(MicetroLoginEvent event, boolean success)
+  {
+    if(event.shouldCommit())
+    {
+      event.backend = backend;
+      event.success = success;
+      event.commit();
+    }
+  }
+
+  boolean isSessionError(MicetroApiException ex)
+  {
+    return micetroConfig.getInvalidSessionCodes().contains(ex.getCode());
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Renews the session shortly before it expires.
+   */
+  public void renew()
+  {
+    Session session = current.get();
+    if(isExpired(session,
+      Duration.ofSeconds(micetroConfig.getSessionRenewMargin())))
+    {
+      try
+      {
+        login(session);
+        log.debug("session of '{}' renewed", backend);
+      }
+      catch(RuntimeException ex)
+      {
+        log.warn("session renewal for '{}' failed: {}", backend,
+          ex.getMessage());
+      }
+    }
+  }
+
+  public String getSession()
+  {
+    Session session = current.get();
+    if(isExpired(session, Duration.ZERO))
+    {
+      log.debug("login - no valid session");
+      sessionMisses.increment();
+      SessionCacheMissEvent event = new SessionCacheMissEvent();
+      event.begin();
+      session = login(session);
+      if(event.shouldCommit())
+      {
+        event.backend = backend;
+        event.commit();
+      }
+    }
+    else
+    {
+      sessionHits.increment();
+    }
+    return session.id();
+  }
+
+  public void invalidate(String sessionId)
+  {
+    Session session = current.get();
+    if(session != null && session.id().equals(sessionId))
+    {
+      current.compareAndSet(session, null);
+    }
+  }
+
+  /**
+   * Runs a Micetro call with the current session. A call rejected because of
+   * an invalid session is retried once with a fresh session.
+   */
+  public <T> T execute(Function<String, T> call)
+  {
+    String session = getSession();
+    try
+    {
+      return call.apply(session);
+    }
+    catch(MicetroApiException ex)
+    {
+      if( ! isSessionError(ex))
+      {
+        throw ex;
+      }
+      log.info("session rejected by '{}' (code={}), login again", backend,
+        ex.getCode());
+      invalidate(session);
+      return call.apply(getSession());
+    }
+  }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import l9g.mousetrap.micetro.api.RefPage;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import l9g.mousetrap.token.BearerTokenRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Removes mousetrap TXT records that were never deleted, e.g. because a hook
+ * crashed.
+ * <p>
+ * A sweep walks every zone named in the enabled bearer tokens on each of
+ * its backends, lists the TXT records tagged with the mousetrap comment and removes those older than
+ * {@code micetro.sweeper.max-age-seconds} in large RemoveObjects batches.
+ * Micetro does not report when a record was created, so the age is taken
+ * from the {@link RecordLedger} and, for records it does not know, from the
+ * time the sweeper first saw the record.
+ * <p>
+ * Sweeps run on a single minimum-priority thread, are paced to
+ * {@code micetro.sweeper.calls-per-second} and back off while live requests
+ * are queued in the {@link MicetroConcurrencyLimiter} of the swept backend
+ * or use more than half of its limit.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "micetro.sweeper", name = "enabled",
+                       havingValue = "true")
+public class OrphanSweeper
+{
+  private static final long BUSY_WAIT_MILLIS = 250;
+
+  private final MicetroService service;
+
+  private final RecordLedger ledger;
+
+  private final BearerTokenRegistry bearerTokenRegistry;
+
+  private final MicetroBackends backends;
+
+  private final MicetroConfig.Sweeper config;
+
+  private final ExecutorService executor;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * When records missing from the ledger were first listed. Rebuilt by every
+   * sweep from the records it lists, so removed records are forgotten.
+   */
+  private volatile Map<String, Instant> firstSeen = Map.of();
+
+  private final Counter scannedCounter;
+
+  private final Counter removedCounter;
+
+  private final long callIntervalNanos;
+
+  private long lastCallNanos;
+
+  private volatile SweepStatus status = SweepStatus.IDLE;
+
+  /**
+   * Progress of the current or last sweep.
+   */
+  public record SweepStatus(boolean running, Instant started,
+    Instant finished, String currentZone, int zonesDone, int zonesTotal,
+    long scanned, long removed, long failed, String lastError)
+    {
+
+    static final SweepStatus IDLE =
+      new SweepStatus(false, null, null, null, 0, 0, 0, 0, 0, null);
+
+  }
+
+  public OrphanSweeper(MicetroService service, RecordLedger ledger,
+    BearerTokenRegistry bearerTokenRegistry, MicetroBackends backends,
+    MicetroConfig micetroConfig, MeterRegistry meterRegistry)
+  {
+    this.service = service;
+    this.ledger = ledger;
+    this.bearerTokenRegistry = bearerTokenRegistry;
+    this.backends = backends;
+    this.config = micetroConfig.getSweeper();
+    this.callIntervalNanos =
+      (long)(TimeUnit.SECONDS.toNanos(1) / config.getCallsPerSecond());
+    this.executor = Executors.newSingleThreadExecutor(runnable ->
+    {
+      Thread thread = new Thread(runnable, "orphan-sweeper");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    this.scannedCounter = meterRegistry.counter("micetro.sweeper.records",
+      "result", "scanned");
+    this.removedCounter = meterRegistry.counter("micetro.sweeper.records",
+      "result", "removed");
+    meterRegistry.gauge("micetro.sweeper.running", running,
+      r -> r.get() ? 1 : 0);
+    log.info("orphan sweeper: {}", config);
+  }
+
+  @Scheduled(initialDelayString = "${micetro.sweeper.interval-seconds:3600}",
+             fixedDelayString = "${micetro.sweeper.interval-seconds:3600}",
+             timeUnit = TimeUnit.SECONDS)
+  void scheduled()
+  {
+    trigger();
+  }
+
+  /**
+   * Starts a sweep in the background unless one is running.
+   *
+   * @return {@code false} if a sweep is already running
+   */
+  public boolean trigger()
+  {
+    if( ! running.compareAndSet(false, true))
+    {
+      return false;
+    }
+    executor.execute(() ->
+    {
+      try
+      {
+        sweep();
+      }
+      finally
+      {
+        running.set(false);
+      }
+    });
+    return true;
+  }
+
+  public SweepStatus getStatus()
+  {
+    return status;
+  }
+
+  @PreDestroy
+  void shutdown()
+  {
+    executor.shutdownNow();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private Set<String> permittedZones()
+  {
+    Set<String> zones = new TreeSet<>();
+    bearerTokenRegistry.tokens().stream()
+      .filter(BearerToken :: isEnabled)
+      .map(BearerToken :: getPermittedZones)
+      .filter(Objects :: nonNull)
+      .flatMap(List :: stream)
+      // wildcard entries name a subtree, not a zone that can be listed
+      .filter(zone -> ! zone.startsWith("*"))
+      .map(zone -> zone.endsWith(".") ? zone : zone + ".")
+      .forEach(zones :: add);
+    return zones;
+  }
+
+  private void sweep()
+  {
+    Set<String> zones = permittedZones();
+    Instant started = Instant.now();
+    Instant cutoff = started.minusSeconds(config.getMaxAgeSeconds());
+    Map<String, Instant> created = new HashMap<>();
+    ledger.entries().forEach(entry -> created.put(
+      recordKey(entry.backend(), entry.ref()), entry.created()));
+    Map<String, Instant> seen = new HashMap<>();
+
+    long scanned = 0;
+    long removed = 0;
+    long failed = 0;
+    String lastError = null;
+    int zonesDone = 0;
+    log.info("sweep started: {} zone(s), removing records older than {}",
+      zones.size(), cutoff);
+
+    for(String zone : zones)
+    {
+      status = new SweepStatus(true, started, null, zone, zonesDone,
+        zones.size(), scanned, removed, failed, lastError);
+      for(MicetroBackend backend : backends.route(zone))
+      {
+        try
+        {
+          List<String> orphans = new ArrayList<>();
+          for(String zoneRef :
+            pace(backend, () -> service.findZoneRefs(backend, zone)))
+          {
+            scanned +=
+              collectOrphans(backend, zoneRef, cutoff, created, seen, orphans);
+          }
+          for(int from = 0; from < orphans.size();
+            from += config.getBatchSize())
+          {
+            List<String> batch = orphans.subList(from,
+              Math.min(from + config.getBatchSize(), orphans.size()));
+            pace(backend, () ->
+            {
+              service.removeRecords(backend, batch);
+              return null;
+            });
+            batch.forEach(ref -> seen.remove(recordKey(backend, ref)));
+            removed += batch.size();
+            removedCounter.increment(batch.size());
+          }
+          if( ! orphans.isEmpty())
+          {
+            log.info("sweep: removed {} orphaned record(s) from '{}' on '{}'",
+              orphans.size(), zone, backend);
+          }
+        }
+        catch(ZoneNotFoundException ex)
+        {
+          log.debug("sweep: zone '{}' not found on '{}'", zone, backend);
+        }
+        catch(InterruptedException ex)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        catch(RuntimeException ex)
+        {
+          failed ++;
+          lastError = zone + "@" + backend + ": " + ex.getMessage();
+          log.warn("sweep of zone '{}' on '{}' failed: {}", zone, backend,
+            ex.getMessage());
+        }
+      }
+      zonesDone ++;
+    }
+
+    if(failed > 0)
+    {
+      // records of zones that could not be listed keep their age
+      firstSeen.forEach(seen :: putIfAbsent);
+    }
+    firstSeen = seen;
+
+    status = new SweepStatus(false, started, Instant.now(), null, zonesDone,
+      zones.size(), scanned, removed, failed, lastError);
+    log.info("sweep finished in {}: scanned={}, removed={}, failed={}",
+      Duration.between(started, Instant.now()), scanned, removed, failed);
+  }
+
+  /**
+   * Lists the tagged records of one zone ref and adds the old ones to
+   * {@code orphans}. Records missing from the ledger are added to
+   * {@code seen}, with the time of the previous sweep that listed them or
+   * now.
+   *
+   * @return number of records scanned
+   */
+  private int collectOrphans(MicetroBackend backend, String zoneRef,
+    Instant cutoff, Map<String, Instant> created, Map<String, Instant> seen,
+    List<String> orphans)
+    throws InterruptedException
+  {
+    Instant now = Instant.now();
+    int scanned = 0;
+    int offset = 0;
+
+    while(true)
+    {
+      int pageOffset = offset;
+      RefPage page = pace(backend,
+        () -> service.findTaggedTxtRecords(backend, zoneRef, pageOffset));
+      for(String ref : page.refs())
+      {
+        String key = recordKey(backend, ref);
+        Instant since = created.get(key);
+        if(since == null)
+        {
+          since = seen.computeIfAbsent(key,
+            k -> firstSeen.getOrDefault(k, now));
+        }
+        if(since.isBefore(cutoff))
+        {
+          orphans.add(ref);
+        }
+      }
+      scanned += page.refs().size();
+      scannedCounter.increment(page.refs().size());
+      offset += page.refs().size();
+
+      if(page.refs().size() < MicetroService.PAGE_SIZE
+        || (page.totalResults() >= 0 && offset >= page.totalResults()))
+      {
+        return scanned;
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface MicetroCall<T>
+  {
+    T call();
+  }
+
+  private static String recordKey(MicetroBackend backend, String ref)
+  {
+    return recordKey(backend.name(), ref);
+  }
+
+  private static String recordKey(String backend, String ref)
+  {
+    return backend + ' ' + ref;
+  }
+
+  /**
+   * Runs a Micetro call no faster than the configured rate and only while
+   * live traffic leaves the connection to {@code backend} mostly idle.
+   */
+  private <T> T pace(MicetroBackend backend, MicetroCall<T> call)
+    throws InterruptedException
+  {
+    MicetroConcurrencyLimiter limiter = backend.limiter();
+    long wait = lastCallNanos + callIntervalNanos - System.nanoTime();
+    if(wait > 0)
+    {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+    while(limiter.getWaiting() > 0
+      || limiter.getInFlight() * 2 > limiter.getLimit())
+    {
+      Thread.sleep(BUSY_WAIT_MILLIS);
+    }
+    lastCallNanos = System.nanoTime();
+    return call.call();
+  }
+
+}
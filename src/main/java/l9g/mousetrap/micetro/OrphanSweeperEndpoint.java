@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * {@code /actuator/sweeper}: progress and counts of the orphan sweeper. A
+ * POST starts a sweep right away.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Component
+@Endpoint(id = "sweeper")
+@ConditionalOnProperty(prefix = "micetro.sweeper", name = "enabled",
+                       havingValue = "true")
+@RequiredArgsConstructor
+public class OrphanSweeperEndpoint
+{
+  private final OrphanSweeper sweeper;
+
+  @ReadOperation
+  public OrphanSweeper.SweepStatus status()
+  {
+    return sweeper.getStatus();
+  }
+
+  @WriteOperation
+  public OrphanSweeper.SweepStatus sweep()
+  {
+    sweeper.trigger();
+    return sweeper.getStatus();
+  }
+
+}
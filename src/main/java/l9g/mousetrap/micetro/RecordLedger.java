@@ -0,0 +1,384 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import l9g.mousetrap.wal.MappedAppendLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Persistent map of {@code (zone, name, data)} to the Micetro ref of every
+ * TXT record mousetrap created, so a remove can go straight to
+ * {@code RemoveObjects} instead of searching the zone.
+ * <p>
+ * Refs are only unique within one Micetro backend, so every entry carries
+ * the backend name.
+ * <p>
+ * The ledger is an append-only {@link MappedAppendLog} of compact binary
+ * entries: {@code ADD} with backend, zone, name, data, zone ref, record ref
+ * and creation time, and {@code REMOVE} with backend and record ref. Entries
+ * written before backends existed belong to
+ * {@value MicetroBackends#DEFAULT_BACKEND}. The ledger is replayed into
+ * memory on startup and rewritten with the live entries when it grows past
+ * {@code micetro.ledger.compact-threshold} and most of it is dead. That
+ * rewrite runs on its own thread, not on the request that crossed the
+ * threshold.
+ * <p>
+ * Not a monitor: records are written from the virtual threads of replicated
+ * writes, and a monitor held across the force to disk would pin their
+ * carriers.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Component
+public class RecordLedger
+{
+  private static final byte LEGACY_ADD = 1;
+
+  private static final byte LEGACY_REMOVE = 2;
+
+  private static final byte ADD = 3;
+
+  private static final byte REMOVE = 4;
+
+  private final MappedAppendLog file;
+
+  private final int compactThreshold;
+
+  private final Map<String, LedgerEntry> byRef = new LinkedHashMap<>();
+
+  private final Map<String, List<LedgerEntry>> byName = new HashMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final AtomicBoolean compacting = new AtomicBoolean();
+
+  private int removedSinceCompaction;
+
+  private boolean closed;
+
+  public RecordLedger(MicetroConfig micetroConfig)
+  {
+    MicetroConfig.Ledger config = micetroConfig.getLedger();
+    this.compactThreshold = config.getCompactThreshold();
+
+    if(config.isEnabled())
+    {
+      this.file = new MappedAppendLog(Path.of(config.getFile()), 64 * 1024);
+      replay();
+    }
+    else
+    {
+      this.file = null;
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static String nameKey(String zone, String name)
+  {
+    return zone.toLowerCase(Locale.ROOT) + ' ' + name.toLowerCase(Locale.ROOT);
+  }
+
+  private static String refKey(String backend, String ref)
+  {
+    return backend + ' ' + ref;
+  }
+
+  private void replay()
+  {
+    for(byte[] payload : file.readAll())
+    {
+      try(DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(payload)))
+      {
+        byte type = in.readByte();
+        String backend = type == LEGACY_ADD || type == LEGACY_REMOVE
+          ? MicetroBackends.DEFAULT_BACKEND : in.readUTF();
+        if(type == ADD || type == LEGACY_ADD)
+        {
+          index(new LedgerEntry(backend, in.readUTF(), in.readUTF(),
+            in.readUTF(), in.readUTF(), in.readUTF(),
+            Instant.ofEpochMilli(in.readLong())));
+        }
+        else
+        {
+          unindex(refKey(backend, in.readUTF()));
+        }
+      }
+      catch(IOException ex)
+      {
+        throw new UncheckedIOException("can not decode ledger entry", ex);
+      }
+    }
+    compact();
+    log.info("record ledger: {} known record(s)", byRef.size());
+  }
+
+  private void index(LedgerEntry entry)
+  {
+    byRef.put(refKey(entry.backend(), entry.ref()), entry);
+    byName.computeIfAbsent(nameKey(entry.zone(), entry.name()),
+      k -> new ArrayList<>(1)).add(entry);
+  }
+
+  private void unindex(String refKey)
+  {
+    LedgerEntry entry = byRef.remove(refKey);
+    if(entry != null)
+    {
+      String key = nameKey(entry.zone(), entry.name());
+      List<LedgerEntry> entries = byName.get(key);
+      entries.remove(entry);
+      if(entries.isEmpty())
+      {
+        byName.remove(key);
+      }
+    }
+  }
+
+  private static byte[] encodeAdd(LedgerEntry entry)
+  {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+    try(DataOutputStream out = new DataOutputStream(buffer))
+    {
+      out.writeByte(ADD);
+      out.writeUTF(entry.backend());
+      out.writeUTF(entry.zone());
+      out.writeUTF(entry.name());
+      out.writeUTF(entry.data());
+      out.writeUTF(entry.dnsZoneRef());
+      out.writeUTF(entry.ref());
+      out.writeLong(entry.created().toEpochMilli());
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+    return buffer.toByteArray();
+  }
+
+  private static byte[] encodeRemove(String backend, String ref)
+  {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(48);
+    try(DataOutputStream out = new DataOutputStream(buffer))
+    {
+      out.writeByte(REMOVE);
+      out.writeUTF(backend);
+      out.writeUTF(ref);
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException(ex);
+    }
+    return buffer.toByteArray();
+  }
+
+  private void compact()
+  {
+    List<byte[]> records = new ArrayList<>(byRef.size());
+    byRef.values().forEach(entry -> records.add(encodeAdd(entry)));
+    file.rewrite(records);
+    removedSinceCompaction = 0;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Rewrites the ledger on a separate thread unless a rewrite is pending.
+   */
+  private void compactInBackground()
+  {
+    if(compacting.compareAndSet(false, true))
+    {
+      Thread.ofVirtual().name("record-ledger-compaction").start(() ->
+      {
+        lock.lock();
+        try
+        {
+          if( ! closed)
+          {
+            log.debug("compacting record ledger");
+            compact();
+          }
+        }
+        catch(RuntimeException ex)
+        {
+          log.warn("compacting record ledger failed: {}", ex.getMessage());
+        }
+        finally
+        {
+          compacting.set(false);
+          lock.unlock();
+        }
+      });
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Remembers a record created by {@code AddDNSRecord} on {@code backend}.
+   */
+  public void recorded(String backend, String zone, String name,
+    String data, String dnsZoneRef, String ref)
+  {
+    if(file != null && ref != null)
+    {
+      LedgerEntry entry = new LedgerEntry(backend, zone, name,
+        data == null ? "" : data, dnsZoneRef, ref, Instant.now());
+      byte[] payload = encodeAdd(entry);
+      lock.lock();
+      try
+      {
+        file.append(payload);
+        index(entry);
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * All known records named {@code name} in {@code zone} on {@code backend}.
+   */
+  public List<LedgerEntry> find(String backend, String zone, String name)
+  {
+    lock.lock();
+    try
+    {
+      List<LedgerEntry> entries = byName.get(nameKey(zone, name));
+      return entries == null ? List.of() : entries.stream()
+        .filter(entry -> entry.backend().equals(backend)).toList();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * All known records, oldest first.
+   */
+  public List<LedgerEntry> entries()
+  {
+    lock.lock();
+    try
+    {
+      return List.copyOf(byRef.values());
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets records that were removed from {@code backend}. All of them are
+   * written with a single force to disk.
+   */
+  public void forget(String backend, Collection<String> refs)
+  {
+    if(file == null)
+    {
+      return;
+    }
+
+    boolean compact;
+    lock.lock();
+    try
+    {
+      List<byte[]> payloads = new ArrayList<>();
+      Set<String> keys = new LinkedHashSet<>();
+      for(String ref : refs)
+      {
+        String key = refKey(backend, ref);
+        if(byRef.containsKey(key) && keys.add(key))
+        {
+          payloads.add(encodeRemove(backend, ref));
+        }
+      }
+      file.appendAll(payloads);
+      keys.forEach(this :: unindex);
+      removedSinceCompaction += keys.size();
+      compact = file.size() > compactThreshold
+        && removedSinceCompaction > byRef.size();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+
+    if(compact)
+    {
+      compactInBackground();
+    }
+  }
+
+  /**
+   * Forgets all records named {@code name} in {@code zone} on
+   * {@code backend}.
+   */
+  public void forget(String backend, String zone, String name)
+  {
+    forget(backend,
+      find(backend, zone, name).stream().map(LedgerEntry :: ref).toList());
+  }
+
+  @PreDestroy
+  public void close()
+    throws IOException
+  {
+    lock.lock();
+    try
+    {
+      closed = true;
+      if(file != null)
+      {
+        file.close();
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+}
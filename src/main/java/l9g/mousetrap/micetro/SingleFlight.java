@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ *
+ * Runs at most one operation per key at a time. Callers arriving while an
+ * operation for their key is in flight wait for it and share its result or
+ * exception instead of starting their own.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+class SingleFlight<K, V>
+{
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight =
+    new ConcurrentHashMap<>();
+
+  private final Counter shared;
+
+  SingleFlight(Counter shared)
+  {
+    this.shared = shared;
+  }
+
+  V execute(K key, Supplier<V> operation)
+  {
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+
+    if(running != null)
+    {
+      shared.increment();
+      try
+      {
+        return running.join();
+      }
+      catch(CompletionException ex)
+      {
+        if(ex.getCause() instanceof RuntimeException cause)
+        {
+          throw cause;
+        }
+        throw ex;
+      }
+    }
+
+    try
+    {
+      V value = operation.get();
+      own.complete(value);
+      return value;
+    }
+    catch(RuntimeException | Error ex)
+    {
+      own.completeExceptionally(ex);
+      throw ex;
+    }
+    finally
+    {
+      inFlight.remove(key, own);
+    }
+  }
+
+}
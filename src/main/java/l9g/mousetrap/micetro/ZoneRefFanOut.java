@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Applies one change to all zone refs of a zone at once.
+ * <p>
+ * Every zone ref gets its own virtual thread, so a zone served by several
+ * DNS servers or views costs one round-trip instead of one per ref. The
+ * tasks form a scope like {@code StructuredTaskScope.ShutdownOnFailure}
+ * (still a preview API in Java 21): the caller waits for all of them until
+ * the request deadline, and the first failure or the deadline cancels the
+ * tasks still running. A cancelled {@code AddDNSRecord} may still have been
+ * applied by Micetro; such records are left to the {@link OrphanSweeper}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+final class ZoneRefFanOut
+{
+  private ZoneRefFanOut()
+  {
+  }
+
+  /**
+   * Result of a fan-out over the zone refs of one or more backends.
+   *
+   * @param succeeded zone refs, as {@code ref@backend}, that were changed
+   * @param failed zone refs that failed or were cancelled
+   * @param records records added or removed
+   * @param error first failure, {@code null} if all zone refs succeeded
+   */
+  record Outcome(List<String> succeeded, List<String> failed, int records,
+    Throwable error, boolean timedOut)
+    {
+
+    static Outcome success(List<String> succeeded, int records)
+    {
+      return new Outcome(succeeded, List.of(), records, null, false);
+    }
+
+    static Outcome merge(List<Outcome> outcomes)
+    {
+      if(outcomes.size() == 1)
+      {
+        return outcomes.get(0);
+      }
+
+      List<String> succeeded = new ArrayList<>();
+      List<String> failed = new ArrayList<>();
+      int records = 0;
+      Throwable error = null;
+      boolean timedOut = false;
+      for(Outcome outcome : outcomes)
+      {
+        succeeded.addAll(outcome.succeeded());
+        failed.addAll(outcome.failed());
+        records += outcome.records();
+        error = error == null ? outcome.error() : error;
+        timedOut |= outcome.timedOut();
+      }
+      return new Outcome(succeeded, failed, records, error, timedOut);
+    }
+
+    /**
+     * @return the changed zone refs
+     *
+     * @throws ZoneRefsFailedException if a zone ref failed
+     */
+    List<String> orThrow()
+    {
+      if(error != null)
+      {
+        throw new ZoneRefsFailedException(succeeded, failed, timedOut, error);
+      }
+      return succeeded;
+    }
+
+  }
+
+  static String qualify(MicetroBackend backend, String zoneRef)
+  {
+    return zoneRef + "@" + backend.name();
+  }
+
+  /**
+   * Runs {@code task} for every zone ref of {@code backend}. A single zone
+   * ref takes the same path, so the deadline bounds its call as well.
+   *
+   * @param task changes one zone ref and returns the number of records
+   * @param deadline {@link System#nanoTime()} by which all refs must be done
+   */
+  static Outcome run(ExecutorService executor, MicetroBackend backend,
+    List<String> zoneRefs, long deadline, ToIntFunction<String> task)
+  {
+    CompletionService<Integer> completion =
+      new ExecutorCompletionService<>(executor);
+    Map<Future<Integer>, String> tasks = new LinkedHashMap<>();
+    for(String zoneRef : zoneRefs)
+    {
+      tasks.put(completion.submit(() -> task.applyAsInt(zoneRef)), zoneRef);
+    }
+
+    List<String> succeeded = new ArrayList<>(zoneRefs.size());
+    int records = 0;
+    Throwable error = null;
+    boolean timedOut = false;
+    try
+    {
+      for(int i = 0; i < zoneRefs.size() && error == null; i ++)
+      {
+        Future<Integer> done = completion.poll(
+          deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if(done == null)
+        {
+          error = deadlineExceeded();
+          timedOut = true;
+        }
+        else
+        {
+          try
+          {
+            records += done.get();
+            succeeded.add(qualify(backend, tasks.get(done)));
+          }
+          catch(ExecutionException ex)
+          {
+            error = ex.getCause();
+            log.debug("zone ref {}@{} failed: {}", tasks.get(done), backend,
+              error.toString());
+          }
+        }
+      }
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      error = ex;
+    }
+
+    if(error == null)
+    {
+      return Outcome.success(succeeded, records);
+    }
+
+    // shut the scope down: cancel the siblings still running
+    tasks.keySet().forEach(future -> future.cancel(true));
+    List<String> failed = new ArrayList<>();
+    for(String zoneRef : zoneRefs)
+    {
+      String qualified = qualify(backend, zoneRef);
+      if( ! succeeded.contains(qualified))
+      {
+        failed.add(qualified);
+      }
+    }
+    return new Outcome(succeeded, failed, records, error, timedOut);
+  }
+
+  private static TimeoutException deadlineExceeded()
+  {
+    return new TimeoutException("request deadline exceeded");
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ *
+ * Thrown when a change could not be applied to every zone ref of a zone.
+ * The cause is the first failure; refs still running at that point were
+ * cancelled and count as failed.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public class ZoneRefsFailedException extends RuntimeException
+{
+  private static final long serialVersionUID = 6410283551853372790L;
+
+  /**
+   * Zone refs, as {@code ref@backend}, that were changed.
+   */
+  private final ArrayList<String> succeeded;
+
+  /**
+   * Zone refs, as {@code ref@backend}, that failed or were cancelled.
+   */
+  private final ArrayList<String> failed;
+
+  /**
+   * The request deadline passed before all zone refs were done.
+   */
+  @Getter
+  private final boolean timedOut;
+
+  public ZoneRefsFailedException(List<String> succeeded, List<String> failed,
+    boolean timedOut, Throwable cause)
+  {
+    super(failed.size() + " of " + (succeeded.size() + failed.size())
+      + " zone ref(s) failed: " + cause.getMessage(), cause);
+    // ArrayList rather than List, the fields must be serializable
+    this.succeeded = new ArrayList<>(succeeded);
+    this.failed = new ArrayList<>(failed);
+    this.timedOut = timedOut;
+  }
+
+  public List<String> getSucceeded()
+  {
+    return Collections.unmodifiableList(succeeded);
+  }
+
+  public List<String> getFailed()
+  {
+    return Collections.unmodifiableList(failed);
+  }
+
+}
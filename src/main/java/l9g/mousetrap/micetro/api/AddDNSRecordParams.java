@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro.api;
+
+/**
+ *
+ * Parameters of the Micetro {@code AddDNSRecord} method.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record AddDNSRecordParams(DnsRecord dnsRecord,
+  boolean forceOverrideOfNamingConflictCheck, String session)
+  implements SessionParams<AddDNSRecordParams>
+  {
+
+  public AddDNSRecordParams(DnsRecord dnsRecord)
+  {
+    this(dnsRecord, true, null);
+  }
+
+  @Override
+  public AddDNSRecordParams withSession(String session)
+  {
+    return new AddDNSRecordParams(dnsRecord,
+      forceOverrideOfNamingConflictCheck, session);
+  }
+
+}
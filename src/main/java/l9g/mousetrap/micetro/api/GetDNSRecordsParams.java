@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro.api;
+
+/**
+ *
+ * Parameters of the Micetro {@code GetDNSRecords} method.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record GetDNSRecordsParams(String dnsZoneRef, String filter,
+  boolean includeMetaRecords, int limit, int offset, boolean syncZone,
+  String session)
+  implements SessionParams<GetDNSRecordsParams>
+  {
+
+  public static GetDNSRecordsParams of(
+    String dnsZoneRef, String filter, int limit)
+  {
+    return new GetDNSRecordsParams(dnsZoneRef, filter, true, limit, 0, false,
+      null);
+  }
+
+  public GetDNSRecordsParams withOffset(int offset)
+  {
+    return new GetDNSRecordsParams(dnsZoneRef, filter, includeMetaRecords,
+      limit, offset, syncZone, session);
+  }
+
+  @Override
+  public GetDNSRecordsParams withSession(String session)
+  {
+    return new GetDNSRecordsParams(dnsZoneRef, filter, includeMetaRecords,
+      limit, offset, syncZone, session);
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.micetro.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import l9g.mousetrap.jsonrpc.ResultExtractor;
+
+/**
+ *
+ * Streaming extractors for the Micetro results mousetrap needs. Only the
+ * requested fields are materialized, everything else is skipped on the token
+ * level.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public final class MicetroResults
+{
+  private static final String REF = "ref";
+
+  private static final String TOTAL_RESULTS = "totalResults";
+
+  /**
+   * Discards the result.
+   */
+  public static final ResultExtractor<Void> NONE = parser ->
+  {
+    parser.skipChildren();
+    return null;
+  };
+
+  /**
+   * The {@code session} of a {@code login} result.
+   */
+  public static final ResultExtractor<String> SESSION = field("session");
+
+  /**
+   * The {@code ref} of the object created by an {@code Add...} method.
+   */
+  public static final ResultExtractor<String> REF_OF_CREATED = field(REF);
+
+  /**
+   * The zone refs of a {@code GetDNSZones} result.
+   */
+  public static final ResultExtractor<RefPage> DNS_ZONES = refs("dnsZones");
+
+  /**
+   * The record refs of a {@code GetDNSRecords} result.
+   */
+  public static final ResultExtractor<RefPage> DNS_RECORDS =
+    refs("dnsRecords");
+
+  private MicetroResults()
+  {
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * A top-level string field of the result object.
+   */
+  public static ResultExtractor<String> field(String name)
+  {
+    return parser ->
+    {
+      String value = null;
+      if(parser.currentToken() != JsonToken.START_OBJECT)
+      {
+        parser.skipChildren();
+        return null;
+      }
+      while(parser.nextToken() == JsonToken.FIELD_NAME)
+      {
+        String field = parser.currentName();
+        parser.nextToken();
+        if(name.equals(field) && parser.currentToken().isScalarValue())
+        {
+          value = parser.getValueAsString();
+        }
+        else
+        {
+          parser.skipChildren();
+        }
+      }
+      return value;
+    };
+  }
+
+  /**
+   * The {@code ref} of every object in the array {@code arrayField} together
+   * with {@code totalResults}.
+   */
+  public static ResultExtractor<RefPage> refs(String arrayField)
+  {
+    return parser ->
+    {
+      List<String> refs = new ArrayList<>();
+      int totalResults = -1;
+
+      if(parser.currentToken() != JsonToken.START_OBJECT)
+      {
+        parser.skipChildren();
+        return new RefPage(refs, totalResults);
+      }
+
+      while(parser.nextToken() == JsonToken.FIELD_NAME)
+      {
+        String field = parser.currentName();
+        JsonToken token = parser.nextToken();
+
+        if(arrayField.equals(field) && token == JsonToken.START_ARRAY)
+        {
+          while(parser.nextToken() == JsonToken.START_OBJECT)
+          {
+            readRef(parser, refs);
+          }
+        }
+        else if(TOTAL_RESULTS.equals(field) && token.isNumeric())
+        {
+          totalResults = parser.getIntValue();
+        }
+        else
+        {
+          parser.skipChildren();
+        }
+      }
+      return new RefPage(refs, totalResults);
+    };
+  }
+
+  private static void readRef(JsonParser parser, List<String> refs)
+    throws IOException
+  {
+    while(parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      JsonToken token = parser.nextToken();
+      if(REF.equals(field) && token == JsonToken.VALUE_STRING)
+      {
+        refs.add(parser.getText());
+      }
+      else
+      {
+        parser.skipChildren();
+      }
+    }
+  }
+
+}
@@ -33,13 +33,6 @@ public class BearerTokenArgumentResolver implements
   HandlerMethodArgumentResolver
 {
 
-  private final BearerTokenConfig tokenConfig;
-
-  public BearerTokenArgumentResolver(BearerTokenConfig tokenConfig)
-  {
-    this.tokenConfig = tokenConfig;
-  }
-
   @Override
   public boolean supportsParameter(MethodParameter parameter)
   {
@@ -64,13 +57,14 @@ public class BearerTokenArgumentResolver implements
       throw new MissingOrInvalidTokenException("anonymous");
     }
 
-    BearerToken token = tokenConfig.getMap().get(principal.getName());
-    if(token == null)
+    // resolved once by the security filter
+    if(principal instanceof StaticBearerAuthenticationToken authentication
+      && authentication.getBearerToken() != null)
     {
-      throw new MissingOrInvalidTokenException(principal.getName());
+      return authentication.getBearerToken();
     }
 
-    return token;
+    throw new MissingOrInvalidTokenException(principal.getName());
   }
 
 }
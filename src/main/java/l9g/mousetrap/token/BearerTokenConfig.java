@@ -17,7 +17,11 @@ package l9g.mousetrap.token;
 
 import java.util.List;
 import java.util.Map;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
@@ -38,6 +42,30 @@ import org.springframework.context.annotation.Configuration;
 public class BearerTokenConfig
 {
   private Map<String,BearerToken> map;
+
+  private RateLimit rateLimit = new RateLimit();
+
+  /**
+   * Default request rate per token, see {@link TokenRateLimiter}. A token
+   * can override {@code requests-per-second} and {@code burst} in its own
+   * {@code bearer-tokens.map.*} entry.
+   */
+  @Data
+  @ToString
+  public static class RateLimit
+  {
+    private boolean enabled = true;
+
+    /**
+     * Sustained rate; {@code 0} disables the limit.
+     */
+    private double requestsPerSecond = 2;
+
+    /**
+     * Requests admitted at once after a quiet period.
+     */
+    private int burst = 60;
+  }
   
   @Data
   @ToString
@@ -54,6 +82,63 @@ public class BearerTokenConfig
     
     private List<String> permittedFqdns;
 
+    /**
+     * Overrides {@code bearer-tokens.rate-limit.requests-per-second}.
+     */
+    private Double requestsPerSecond;
+
+    /**
+     * Overrides {@code bearer-tokens.rate-limit.burst}.
+     */
+    private Integer burst;
+
     private boolean enabled = false;
+
+    /**
+     * Compiled form of {@code permittedZones}, replaced as a whole whenever
+     * the list is (re)bound.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile PermissionIndex zoneIndex = PermissionIndex.EMPTY;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile PermissionIndex fqdnIndex = PermissionIndex.EMPTY;
+
+    public void setPermittedZones(List<String> permittedZones)
+    {
+      this.permittedZones = permittedZones;
+      this.zoneIndex = PermissionIndex.compile(permittedZones);
+    }
+
+    public void setPermittedFqdns(List<String> permittedFqdns)
+    {
+      this.permittedFqdns = permittedFqdns;
+      this.fqdnIndex = PermissionIndex.compile(permittedFqdns);
+    }
+
+    /**
+     * Checks a zone against {@code permittedZones}, including wildcard
+     * entries like {@code *.example.de.}.
+     */
+    public boolean permitsZone(String zone)
+    {
+      return zoneIndex.permits(zone);
+    }
+
+    /**
+     * Checks an FQDN against {@code permittedFqdns}. An empty list permits
+     * every FQDN.
+     */
+    public boolean permitsFqdn(String fqdn)
+    {
+      PermissionIndex index = fqdnIndex;
+      return index.isEmpty() || index.permits(fqdn);
+    }
   }
 }
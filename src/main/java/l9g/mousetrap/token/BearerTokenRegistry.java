@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Immutable view of the configured bearer tokens, indexed by name and by the
+ * digest of their Base64-encoded secret.
+ * <p>
+ * The snapshot is built once at startup and rebuilt after every
+ * {@code /actuator/refresh}, then swapped in as a whole. Readers on the
+ * request path only ever see a complete snapshot and never touch the
+ * mutable {@link BearerTokenConfig} map. The snapshot holds no secrets: each
+ * token is registered under the digests of its padded and unpadded Base64
+ * form, the two encodings clients send.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Component
+@Slf4j
+public class BearerTokenRegistry
+{
+  private final BearerTokenConfig config;
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * A token together with the name it is configured under and the
+   * {@link StaticBearerAuthenticationToken} handed out for it.
+   */
+  public record RegisteredToken(String name, BearerToken token,
+    StaticBearerAuthenticationToken authentication)
+    {
+
+    RegisteredToken(String name, BearerToken token)
+    {
+      this(name, token, new StaticBearerAuthenticationToken(name, token));
+    }
+
+  }
+
+  private record Snapshot(
+    Map<String, BearerToken> byName, TokenDigestTable byDigest)
+    {
+  }
+
+  public BearerTokenRegistry(BearerTokenConfig config)
+  {
+    this.config = config;
+    this.snapshot = build(config.getMap());
+  }
+
+  @EventListener(RefreshScopeRefreshedEvent.class)
+  public void refresh()
+  {
+    snapshot = build(config.getMap());
+    log.info("bearer token registry rebuilt, {} token(s)",
+      snapshot.byName().size());
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static Snapshot build(Map<String, BearerToken> tokens)
+  {
+    Map<String, BearerToken> byName = new LinkedHashMap<>();
+    TokenDigestTable byDigest =
+      new TokenDigestTable(tokens == null ? 0 : tokens.size() * 2);
+
+    if(tokens != null)
+    {
+      tokens.forEach((name, token) ->
+      {
+        if(token == null)
+        {
+          return;
+        }
+        byName.put(name, token);
+        String secret = token.getToken();
+        if(secret == null || secret.isEmpty())
+        {
+          return;
+        }
+
+        byte[] raw = secret.getBytes(StandardCharsets.UTF_8);
+        String padded = Base64.getEncoder().encodeToString(raw);
+        String unpadded = Base64.getEncoder().withoutPadding().encodeToString(raw);
+
+        RegisteredToken registered = new RegisteredToken(name, token);
+        RegisteredToken previous =
+          byDigest.putIfAbsent(TokenDigest.of(padded), registered);
+        if(previous != null)
+        {
+          log.warn("bearer token '{}' uses the same secret as '{}', ignored",
+            name, previous.name());
+          return;
+        }
+        if( ! unpadded.equals(padded))
+        {
+          byDigest.putIfAbsent(TokenDigest.of(unpadded), registered);
+        }
+      });
+    }
+
+    return new Snapshot(Collections.unmodifiableMap(byName), byDigest);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Looks up a token by the Base64-encoded secret found in {@code header}
+   * from index {@code from} on, e.g. right after {@code "Bearer "}.
+   * Surrounding whitespace is ignored. The lookup does not allocate.
+   *
+   * @return the token or {@code null} if the secret is unknown
+   */
+  public RegisteredToken findByEncodedSecret(String header, int from)
+  {
+    byte[] digest = TokenDigest.ofHeader(header, from);
+    return digest == null ? null : snapshot.byDigest().get(digest);
+  }
+
+  /**
+   * Looks up a token by the name it is configured under.
+   *
+   * @return the token or {@code null} if the name is unknown
+   */
+  public BearerToken get(String name)
+  {
+    return snapshot.byName().get(name);
+  }
+
+  /**
+   * All configured tokens, enabled or not.
+   */
+  public Collection<BearerToken> tokens()
+  {
+    return snapshot.byName().values();
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * Compiled, immutable form of a list of permitted zones or FQDNs.
+ * <p>
+ * Plain entries go into a case-folded hash set. Wildcard entries such as
+ * {@code *.dev.example.de.} go into a trie keyed by the labels in reverse
+ * order and grant every name below that domain (but not the domain itself).
+ * A check therefore costs one hash lookup plus at most one step per label of
+ * the checked name, independent of the number of entries.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public final class PermissionIndex
+{
+  public static final PermissionIndex EMPTY = compile(null);
+
+  private static final String WILDCARD_PREFIX = "*.";
+
+  private final Set<String> exact;
+
+  private final Node root;
+
+  private final boolean empty;
+
+  private static final class Node
+  {
+    private final Map<String, Node> children = new HashMap<>();
+
+    private boolean subtree;
+  }
+
+  private PermissionIndex(Set<String> exact, Node root, boolean empty)
+  {
+    this.exact = exact;
+    this.root = root;
+    this.empty = empty;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  static String fold(String name)
+  {
+    String folded = name.trim().toLowerCase(Locale.ROOT);
+    return folded.endsWith(".") ? folded : folded + ".";
+  }
+
+  public static PermissionIndex compile(Collection<String> entries)
+  {
+    Set<String> exact = new HashSet<>();
+    Node root = new Node();
+
+    if(entries != null)
+    {
+      for(String entry : entries)
+      {
+        if(entry == null || entry.isBlank())
+        {
+          continue;
+        }
+
+        String name = fold(entry);
+        if(name.startsWith(WILDCARD_PREFIX))
+        {
+          Node node = root;
+          String[] labels = name.substring(1).split("\\.");
+          for(int i = labels.length - 1; i >= 0; i--)
+          {
+            if( ! labels[i].isEmpty())
+            {
+              node = node.children.computeIfAbsent(labels[i], l -> new Node());
+            }
+          }
+          node.subtree = true;
+        }
+        else
+        {
+          exact.add(name);
+        }
+      }
+    }
+
+    return new PermissionIndex(Set.copyOf(exact), root,
+      exact.isEmpty() && root.children.isEmpty() &&  ! root.subtree);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * {@code true} if no entry was configured.
+   */
+  public boolean isEmpty()
+  {
+    return empty;
+  }
+
+  /**
+   * Checks a zone or FQDN, case-insensitive and with or without trailing dot.
+   */
+  public boolean permits(String name)
+  {
+    if(name == null || empty)
+    {
+      return false;
+    }
+
+    String folded = fold(name);
+    if(exact.contains(folded))
+    {
+      return true;
+    }
+
+    Node node = root;
+    int end = folded.length() - 1;
+    while(end > 0)
+    {
+      if(node.subtree)
+      {
+        // at least one more label below the wildcard domain
+        return true;
+      }
+      int dot = folded.lastIndexOf('.', end - 1);
+      node = node.children.get(folded.substring(dot + 1, end));
+      if(node == null)
+      {
+        return false;
+      }
+      end = dot;
+    }
+    return false;
+  }
+
+}
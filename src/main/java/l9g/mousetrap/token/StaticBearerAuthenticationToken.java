@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ *
+ * A custom {@link Authentication} token representing a successfully
+ * authenticated client via a static Bearer token.
+ * <p>
+ * It holds the principal (the token's name), details (the token's owner) and
+ * the resolved {@link BearerToken} itself, so later stages of the request do
+ * not have to look the token up again. The {@link BearerTokenRegistry}
+ * creates one instance per token and hands it to every request made with
+ * that token, so the instance is immutable: it is always authenticated and
+ * the inherited mutators do nothing.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public final class StaticBearerAuthenticationToken
+  extends AbstractAuthenticationToken
+{
+  private static final long serialVersionUID = 4417386950532846135L;
+
+  private final String principalName;
+
+  private final transient BearerToken bearerToken;
+
+  public StaticBearerAuthenticationToken(String principalName,
+    BearerToken bearerToken)
+  {
+    super(AuthorityUtils.NO_AUTHORITIES);
+    this.principalName = principalName;
+    this.bearerToken = bearerToken;
+  }
+
+  public BearerToken getBearerToken()
+  {
+    return bearerToken;
+  }
+
+  @Override
+  public Object getCredentials()
+  {
+    return ""; // kein Geheimnis mehr speichern
+  }
+
+  @Override
+  public Object getPrincipal()
+  {
+    return principalName;
+  }
+
+  @Override
+  public Object getDetails()
+  {
+    return bearerToken.getOwner();
+  }
+
+  @Override
+  public boolean isAuthenticated()
+  {
+    return true;
+  }
+
+  /**
+   * Ignored, the instance is shared between requests.
+   */
+  @Override
+  public void setAuthenticated(boolean authenticated)
+  {
+  }
+
+  /**
+   * Ignored, the instance is shared between requests.
+   */
+  @Override
+  public void setDetails(Object details)
+  {
+  }
+
+  /**
+   * Nothing to erase, no credentials are kept.
+   */
+  @Override
+  public void eraseCredentials()
+  {
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * Lock-free token bucket for a single bearer token.
+ * <p>
+ * The bucket is kept in its GCRA form: a single {@link AtomicLong} holds the
+ * theoretical arrival time of the next request, and admitting a request
+ * advances it by one emission interval with a compare-and-set. A request is
+ * rejected if that would put the arrival time more than {@code burst}
+ * intervals into the future; the excess is exactly the time until the
+ * request would be admitted.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+final class TokenBucket
+{
+  private final double requestsPerSecond;
+
+  private final int burst;
+
+  private final long intervalNanos;
+
+  private final long capacityNanos;
+
+  private final AtomicLong arrival;
+
+  TokenBucket(double requestsPerSecond, int burst, long nowNanos)
+  {
+    this.requestsPerSecond = requestsPerSecond;
+    this.burst = Math.max(1, burst);
+    this.intervalNanos =
+      Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+    this.capacityNanos = intervalNanos * this.burst;
+    this.arrival = new AtomicLong(nowNanos);
+  }
+
+  boolean hasSettings(double requestsPerSecond, int burst)
+  {
+    return this.requestsPerSecond == requestsPerSecond
+      && this.burst == Math.max(1, burst);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Takes one token.
+   *
+   * @return {@code 0} if the request is admitted, otherwise the nanoseconds
+   *         until a token becomes available
+   */
+  long tryAcquire(long nowNanos)
+  {
+    for(;;)
+    {
+      long current = arrival.get();
+      long next = Math.max(current, nowNanos) + intervalNanos;
+      long excess = next - nowNanos - capacityNanos;
+      if(excess > 0)
+      {
+        return excess;
+      }
+      if(arrival.compareAndSet(current, next))
+      {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Tokens currently left in the bucket.
+   */
+  double available(long nowNanos)
+  {
+    long backlog = Math.max(0, arrival.get() - nowNanos);
+    return (double)(capacityNanos - backlog) / intervalNanos;
+  }
+
+}
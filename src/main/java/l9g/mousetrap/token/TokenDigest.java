@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ *
+ * SHA-256 digests of Base64-encoded bearer secrets, as they appear in the
+ * {@code Authorization} header.
+ * <p>
+ * Requests are hashed into per-thread scratch buffers, so a lookup does not
+ * allocate and the decoded secret never exists as a {@code String}.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+final class TokenDigest
+{
+  static final int LENGTH = 32;
+
+  /**
+   * Longer header values cannot belong to a configured token and are not
+   * hashed at all.
+   */
+  static final int MAX_ENCODED_LENGTH = 1024;
+
+  private static final ThreadLocal<Scratch> SCRATCH =
+    ThreadLocal.withInitial(Scratch :: new);
+
+  private static final class Scratch
+  {
+    private final MessageDigest sha256 = newDigest();
+
+    private final byte[] input = new byte[MAX_ENCODED_LENGTH];
+
+    private final byte[] digest = new byte[LENGTH];
+  }
+
+  private TokenDigest()
+  {
+  }
+
+  private static MessageDigest newDigest()
+  {
+    try
+    {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch(NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Digest of an encoded secret, used when the registry is built.
+   */
+  static byte[] of(String encoded)
+  {
+    return newDigest().digest(encoded.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Digest of {@code value} from index {@code from} on, ignoring surrounding
+   * whitespace.
+   * <p>
+   * The returned array belongs to the calling thread and is overwritten by
+   * its next call.
+   *
+   * @return the digest or {@code null} if the value is empty, too long or
+   *         contains characters that cannot occur in Base64
+   */
+  static byte[] ofHeader(String value, int from)
+  {
+    int start = from;
+    int end = value.length();
+    while(start < end && value.charAt(start) <= ' ')
+    {
+      start ++;
+    }
+    while(end > start && value.charAt(end - 1) <= ' ')
+    {
+      end --;
+    }
+
+    int length = end - start;
+    if(length == 0 || length > MAX_ENCODED_LENGTH)
+    {
+      return null;
+    }
+
+    Scratch scratch = SCRATCH.get();
+    byte[] input = scratch.input;
+    for(int i = 0; i < length; i ++)
+    {
+      char c = value.charAt(start + i);
+      if(c > '~')
+      {
+        return null;
+      }
+      input[i] = (byte)c;
+    }
+
+    try
+    {
+      scratch.sha256.update(input, 0, length);
+      scratch.sha256.digest(scratch.digest, 0, LENGTH);
+    }
+    catch(DigestException ex)
+    {
+      throw new IllegalStateException(ex);
+    }
+    return scratch.digest;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import java.security.MessageDigest;
+import l9g.mousetrap.token.BearerTokenRegistry.RegisteredToken;
+
+/**
+ *
+ * Open-addressing hash table from {@link TokenDigest} to token.
+ * <p>
+ * The slot is taken from the first digest bytes, which are uniformly
+ * distributed, and collisions are resolved by linear probing. Candidates are
+ * confirmed with {@link MessageDigest#isEqual}, so the comparison takes the
+ * same time wherever the digests differ. The table is filled once and only
+ * read afterwards.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+final class TokenDigestTable
+{
+  private static final int MIN_CAPACITY = 16;
+
+  private final byte[][] keys;
+
+  private final RegisteredToken[] values;
+
+  private final int mask;
+
+  TokenDigestTable(int expected)
+  {
+    int capacity = MIN_CAPACITY;
+    while(capacity < expected * 2)
+    {
+      capacity <<= 1;
+    }
+    this.keys = new byte[capacity][];
+    this.values = new RegisteredToken[capacity];
+    this.mask = capacity - 1;
+  }
+
+  private int slot(byte[] digest)
+  {
+    return ((digest[0] & 0xff)
+      | (digest[1] & 0xff) << 8
+      | (digest[2] & 0xff) << 16
+      | (digest[3] & 0xff) << 24) & mask;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Adds a digest unless it is already present.
+   *
+   * @return the token already registered under {@code digest}, or
+   *         {@code null} if it was added
+   */
+  RegisteredToken putIfAbsent(byte[] digest, RegisteredToken token)
+  {
+    int i = slot(digest);
+    while(keys[i] != null)
+    {
+      if(MessageDigest.isEqual(keys[i], digest))
+      {
+        return values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = digest;
+    values[i] = token;
+    return null;
+  }
+
+  /**
+   * @return the token registered under {@code digest} or {@code null}
+   */
+  RegisteredToken get(byte[] digest)
+  {
+    int i = slot(digest);
+    byte[] key;
+    while((key = keys[i]) != null)
+    {
+      if(MessageDigest.isEqual(key, digest))
+      {
+        return values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return null;
+  }
+
+}
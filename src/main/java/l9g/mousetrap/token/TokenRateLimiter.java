@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.token;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import l9g.mousetrap.token.BearerTokenConfig.RateLimit;
+import l9g.mousetrap.token.BearerTokenRegistry.RegisteredToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Per-token admission control in front of all Micetro work.
+ * <p>
+ * Every bearer token gets its own {@link TokenBucket}, configured by
+ * {@code bearer-tokens.rate-limit.*} or the token's own
+ * {@code requests-per-second} and {@code burst}. A client stuck in a retry
+ * loop therefore only exhausts its own budget. The remaining tokens and the
+ * number of rejected requests are exported per token and owner as
+ * {@code mousetrap.ratelimit.*} metrics.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Component
+@Slf4j
+public class TokenRateLimiter
+{
+  private final BearerTokenConfig config;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+  private record Limit(TokenBucket bucket, Counter rejected, Gauge available)
+    {
+  }
+
+  public TokenRateLimiter(BearerTokenConfig config, MeterRegistry meterRegistry)
+  {
+    this.config = config;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Drops the buckets of tokens that were removed or whose limits changed.
+   */
+  @EventListener(RefreshScopeRefreshedEvent.class)
+  public void refresh()
+  {
+    Map<String, BearerToken> tokens = config.getMap();
+    limits.forEach((name, limit) ->
+    {
+      BearerToken token = tokens == null ? null : tokens.get(name);
+      if(token == null ||  ! limit.bucket().hasSettings(
+        requestsPerSecond(token), burst(token)))
+      {
+        discard(name, limit);
+      }
+    });
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private double requestsPerSecond(BearerToken token)
+  {
+    Double value = token.getRequestsPerSecond();
+    return value != null ? value : config.getRateLimit().getRequestsPerSecond();
+  }
+
+  private int burst(BearerToken token)
+  {
+    Integer value = token.getBurst();
+    return value != null ? value : config.getRateLimit().getBurst();
+  }
+
+  private Limit create(String name, BearerToken token, double requestsPerSecond,
+    int burst)
+  {
+    TokenBucket bucket = new TokenBucket(requestsPerSecond, burst,
+      System.nanoTime());
+    String owner = Objects.requireNonNullElse(token.getOwner(), "");
+    log.debug("rate limit for '{}': {}/s, burst {}", name, requestsPerSecond,
+      burst);
+    return new Limit(bucket,
+      Counter.builder("mousetrap.ratelimit.rejected")
+        .tag("token", name)
+        .tag("owner", owner)
+        .register(meterRegistry),
+      Gauge.builder("mousetrap.ratelimit.available", bucket,
+        b -> b.available(System.nanoTime()))
+        .tag("token", name)
+        .tag("owner", owner)
+        .register(meterRegistry));
+  }
+
+  private void discard(String name, Limit limit)
+  {
+    if(limits.remove(name, limit))
+    {
+      meterRegistry.remove(limit.rejected());
+      meterRegistry.remove(limit.available());
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Admits one request made with {@code registered}.
+   *
+   * @return {@code 0} if the request may proceed, otherwise the nanoseconds
+   *         until the token has budget again
+   */
+  public long tryAcquire(RegisteredToken registered)
+  {
+    RateLimit defaults = config.getRateLimit();
+    if( ! defaults.isEnabled())
+    {
+      return 0;
+    }
+
+    BearerToken token = registered.token();
+    double requestsPerSecond = requestsPerSecond(token);
+    if(requestsPerSecond <= 0)
+    {
+      return 0;
+    }
+    int burst = burst(token);
+
+    String name = registered.name();
+    Limit limit = limits.get(name);
+    if(limit == null ||  ! limit.bucket().hasSettings(requestsPerSecond, burst))
+    {
+      if(limit != null)
+      {
+        discard(name, limit);
+      }
+      limit = limits.computeIfAbsent(name,
+        n -> create(n, token, requestsPerSecond, burst));
+    }
+
+    long waitNanos = limit.bucket().tryAcquire(System.nanoTime());
+    if(waitNanos > 0)
+    {
+      limit.rejected().increment();
+    }
+    return waitNanos;
+  }
+
+}
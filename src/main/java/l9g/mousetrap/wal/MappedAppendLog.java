@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * Append-only record file backed by a memory-mapped buffer.
+ * <p>
+ * Every record is stored as {@code [int length][int crc32c][payload]} and
+ * forced to disk before {@link #append(byte[])} returns. A record with
+ * length 0 or a wrong checksum marks the end of the log, so a torn write at
+ * the tail after a crash is simply dropped on the next open.
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than a monitor, so a virtual
+ * thread waiting for a force to the device does not pin its carrier.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+public class MappedAppendLog implements Closeable
+{
+  private static final int HEADER_SIZE = 8;
+
+  private final Path path;
+
+  private final int initialCapacity;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private FileChannel channel;
+
+  private MappedByteBuffer buffer;
+
+  private int position;
+
+  public MappedAppendLog(Path path, int initialCapacity)
+  {
+    this.path = path;
+    this.initialCapacity = initialCapacity;
+    try
+    {
+      Path parent = path.toAbsolutePath().getParent();
+      if(parent != null)
+      {
+        Files.createDirectories(parent);
+      }
+      open();
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException("can not open " + path, ex);
+    }
+  }
+
+  private void open()
+    throws IOException
+  {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE);
+    map((int)Math.max(initialCapacity, channel.size()));
+    position = 0;
+    while(readAt(position) != null)
+    {
+      position += HEADER_SIZE + buffer.getInt(position);
+    }
+    log.debug("{} opened, {} bytes in use", path, position);
+  }
+
+  private void map(int capacity)
+    throws IOException
+  {
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+  }
+
+  private static int checksum(byte[] payload)
+  {
+    CRC32C crc = new CRC32C();
+    crc.update(payload);
+    return (int)crc.getValue();
+  }
+
+  private byte[] readAt(int offset)
+  {
+    if(offset + HEADER_SIZE > buffer.capacity())
+    {
+      return null;
+    }
+
+    int length = buffer.getInt(offset);
+    if(length <= 0 || offset + HEADER_SIZE + length > buffer.capacity())
+    {
+      return null;
+    }
+
+    byte[] payload = new byte[length];
+    buffer.get(offset + HEADER_SIZE, payload);
+    return checksum(payload) == buffer.getInt(offset + 4) ? payload : null;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns all intact records in append order.
+   */
+  public List<byte[]> readAll()
+  {
+    lock.lock();
+    try
+    {
+      List<byte[]> records = new ArrayList<>();
+      int offset = 0;
+      byte[] payload;
+      while(offset < position && (payload = readAt(offset)) != null)
+      {
+        records.add(payload);
+        offset += HEADER_SIZE + payload.length;
+      }
+      return records;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a record and forces it to the storage device.
+   */
+  public void append(byte[] payload)
+  {
+    appendAll(List.of(payload));
+  }
+
+  /**
+   * Appends records and forces them to the storage device at once.
+   */
+  public void appendAll(List<byte[]> payloads)
+  {
+    if(payloads.isEmpty())
+    {
+      return;
+    }
+
+    lock.lock();
+    try
+    {
+      int required = position;
+      for(byte[] payload : payloads)
+      {
+        required += HEADER_SIZE + payload.length;
+      }
+      try
+      {
+        if(required + HEADER_SIZE > buffer.capacity())
+        {
+          map(Math.max(buffer.capacity() * 2, required + HEADER_SIZE));
+        }
+      }
+      catch(IOException ex)
+      {
+        throw new UncheckedIOException("can not grow " + path, ex);
+      }
+
+      int start = position;
+      int offset = position;
+      for(byte[] payload : payloads)
+      {
+        buffer.putInt(offset + 4, checksum(payload));
+        buffer.put(offset + HEADER_SIZE, payload);
+        // the length is written last, it commits the record
+        buffer.putInt(offset, payload.length);
+        offset += HEADER_SIZE + payload.length;
+      }
+      buffer.force(start, required - start);
+      position = required;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Atomically replaces the log content with the given records.
+   */
+  public void rewrite(List<byte[]> records)
+  {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    lock.lock();
+    try
+    {
+      try(FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+      {
+        for(byte[] payload : records)
+        {
+          ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+          header.putInt(payload.length).putInt(checksum(payload)).flip();
+          out.write(header);
+          out.write(ByteBuffer.wrap(payload));
+        }
+        out.force(true);
+      }
+      channel.close();
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+      // the rename itself is only durable once the directory is synced
+      syncDirectory(path.toAbsolutePath().getParent());
+      open();
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException("can not rewrite " + path, ex);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private static void syncDirectory(Path directory)
+    throws IOException
+  {
+    try(FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ))
+    {
+      dir.force(true);
+    }
+  }
+
+  /**
+   * Number of bytes used by records.
+   */
+  public int size()
+  {
+    lock.lock();
+    try
+    {
+      return position;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    lock.lock();
+    try
+    {
+      buffer.force();
+      channel.close();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+}
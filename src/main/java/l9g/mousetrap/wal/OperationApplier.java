@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import l9g.mousetrap.micetro.MicetroApiException;
+import l9g.mousetrap.micetro.MicetroConfig;
+import l9g.mousetrap.micetro.MicetroService;
+import l9g.mousetrap.micetro.ZoneNotFoundException;
+import l9g.mousetrap.micetro.ZoneRefsFailedException;
+import l9g.mousetrap.token.BearerTokenConfig.BearerToken;
+import l9g.mousetrap.token.BearerTokenRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ *
+ * Drains the {@link OperationLog} to Micetro.
+ * <p>
+ * Operations are applied one after another in submission order, so an add
+ * followed by a remove of the same record can never overtake each other.
+ * Transient failures are retried with exponential backoff.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "micetro.async", name = "enabled",
+                       havingValue = "true")
+public class OperationApplier
+{
+  private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+  private final OperationLog operationLog;
+
+  private final MicetroService service;
+
+  private final BearerTokenRegistry bearerTokenRegistry;
+
+  private final MicetroConfig.Async config;
+
+  public OperationApplier(OperationLog operationLog, MicetroService service,
+    BearerTokenRegistry bearerTokenRegistry, MicetroConfig micetroConfig)
+  {
+    this.operationLog = operationLog;
+    this.service = service;
+    this.bearerTokenRegistry = bearerTokenRegistry;
+    this.config = micetroConfig.getAsync();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start()
+  {
+    Thread.ofVirtual().name("micetro-wal-applier").start(this :: drain);
+  }
+
+  private void drain()
+  {
+    while( ! Thread.currentThread().isInterrupted())
+    {
+      Operation operation;
+      try
+      {
+        operation = operationLog.take();
+      }
+      catch(InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      try
+      {
+        apply(operation);
+      }
+      catch(InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+      }
+      catch(RuntimeException ex)
+      {
+        log.error("operation {} aborted", operation.id(), ex);
+        abort(operation, ex);
+      }
+    }
+  }
+
+  /**
+   * Marks an operation as failed after an unexpected exception, so it does
+   * not stay pending. The applier keeps running if that fails as well.
+   */
+  private void abort(Operation operation, RuntimeException cause)
+  {
+    try
+    {
+      operationLog.complete(operation, OperationState.FAILED,
+        cause.getMessage());
+    }
+    catch(RuntimeException ex)
+    {
+      log.error("operation {} could not be marked as failed",
+        operation.id(), ex);
+    }
+  }
+
+  private void apply(Operation operation)
+    throws InterruptedException
+  {
+    BearerToken token = bearerTokenRegistry.get(operation.tokenName());
+    if(token == null ||  ! token.isEnabled())
+    {
+      operationLog.complete(operation, OperationState.FAILED,
+        "bearer token no longer valid");
+      return;
+    }
+
+    long delay = config.getRetryDelayMillis();
+    for(int attempt = 1;; attempt++)
+    {
+      try
+      {
+        switch(operation.type())
+        {
+          case ADD ->
+            service.addTxtRecords(token, operation.zone(), operation.name(),
+              operation.data());
+          case REMOVE ->
+            service.removeTxtRecords(token, operation.zone(),
+              operation.name());
+        }
+        log.info("APPLIED {}: zone={}, name={}, id={}", operation.type(),
+          operation.zone(), operation.name(), operation.id());
+        operationLog.complete(operation, OperationState.APPLIED, null);
+        return;
+      }
+      catch(ZoneNotFoundException | MicetroApiException ex)
+      {
+        log.warn("operation {} failed: {}", operation.id(), ex.getMessage());
+        operationLog.complete(operation, OperationState.FAILED,
+          ex.getMessage());
+        return;
+      }
+      catch(RuntimeException ex)
+      {
+        if(ex instanceof ZoneRefsFailedException failed
+          && failed.getCause() instanceof MicetroApiException)
+        {
+          log.warn("operation {} failed: {}", operation.id(), ex.getMessage());
+          operationLog.complete(operation, OperationState.FAILED,
+            ex.getMessage());
+          return;
+        }
+        if(attempt >= config.getMaxAttempts())
+        {
+          log.error("operation {} failed after {} attempts: {}",
+            operation.id(), attempt, ex.getMessage());
+          operationLog.complete(operation, OperationState.FAILED,
+            ex.getMessage());
+          return;
+        }
+        log.warn("operation {} attempt {} failed, retry in {}ms: {}",
+          operation.id(), attempt, delay, ex.getMessage());
+        Thread.sleep(delay);
+        delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+}
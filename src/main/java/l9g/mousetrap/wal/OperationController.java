@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import java.security.Principal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ *
+ * Reports the state of asynchronous TXT record operations. A token can only
+ * see the operations it submitted itself.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnProperty(prefix = "micetro.async", name = "enabled",
+                       havingValue = "true")
+@RequestMapping(path = "/api/v1/micetro/operations",
+                produces = MediaType.APPLICATION_JSON_VALUE)
+public class OperationController
+{
+  private final OperationLog operationLog;
+
+  @GetMapping("/{id}")
+  public ResponseEntity<OperationStatus> status(
+    @PathVariable String id, Principal principal)
+  {
+    log.debug("operation status id={}", id);
+    return operationLog.find(id)
+      .filter(status -> status.tokenName().equals(principal.getName()))
+      .map(ResponseEntity :: ok)
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import l9g.mousetrap.micetro.MicetroConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ *
+ * Durable queue of asynchronous TXT record operations.
+ * <p>
+ * Every accepted operation is written to the write-ahead log before the
+ * client gets its {@code 202 Accepted}. Completion is appended as a separate
+ * entry. On startup all operations without a completion entry are queued
+ * again and the log is compacted to just those.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "micetro.async", name = "enabled",
+                       havingValue = "true")
+public class OperationLog
+{
+  private final ObjectMapper objectMapper;
+
+  private final MappedAppendLog wal;
+
+  private final int compactThreshold;
+
+  private final Map<String, OperationStatus> pending =
+    new ConcurrentHashMap<>();
+
+  private final Cache<String, OperationStatus> completed;
+
+  private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  public OperationLog(MicetroConfig micetroConfig, ObjectMapper objectMapper)
+  {
+    MicetroConfig.Async config = micetroConfig.getAsync();
+    this.objectMapper = objectMapper;
+    this.compactThreshold = config.getCompactThreshold();
+    this.completed = Caffeine.newBuilder()
+      .expireAfterWrite(Duration.ofSeconds(config.getStatusTtl()))
+      .build();
+    this.wal = new MappedAppendLog(Path.of(config.getWalFile()), 64 * 1024);
+    replay();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private byte[] encode(WalEntry entry)
+  {
+    try
+    {
+      return objectMapper.writeValueAsBytes(entry);
+    }
+    catch(JsonProcessingException ex)
+    {
+      throw new IllegalStateException("can not encode wal entry", ex);
+    }
+  }
+
+  private WalEntry decode(byte[] payload)
+  {
+    try
+    {
+      return objectMapper.readValue(payload, WalEntry.class);
+    }
+    catch(IOException ex)
+    {
+      throw new UncheckedIOException("can not decode wal entry", ex);
+    }
+  }
+
+  private synchronized void replay()
+  {
+    Map<String, Operation> open = new LinkedHashMap<>();
+
+    for(byte[] payload : wal.readAll())
+    {
+      WalEntry entry = decode(payload);
+      if(entry.submit() != null)
+      {
+        open.put(entry.submit().id(), entry.submit());
+      }
+      else
+      {
+        Operation operation = open.remove(entry.done());
+        if(operation != null)
+        {
+          completed.put(operation.id(), OperationStatus.pending(operation)
+            .complete(entry.state(), entry.message(), entry.time()));
+        }
+      }
+    }
+
+    compact(open.values());
+
+    for(Operation operation : open.values())
+    {
+      pending.put(operation.id(), OperationStatus.pending(operation));
+      queue.add(operation);
+    }
+
+    if( ! open.isEmpty())
+    {
+      log.info("{} unapplied operation(s) recovered from write-ahead log",
+        open.size());
+    }
+  }
+
+  private void compact(Iterable<Operation> open)
+  {
+    List<byte[]> records = new ArrayList<>();
+    open.forEach(operation -> records.add(encode(WalEntry.submitted(operation))));
+    wal.rewrite(records);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Durably records a new operation and queues it for the applier.
+   */
+  public synchronized OperationStatus submit(OperationType type,
+    String tokenName, String zone, String name, String data)
+  {
+    Operation operation = new Operation(UUID.randomUUID().toString(), type,
+      tokenName, zone, name, data, Instant.now());
+    wal.append(encode(WalEntry.submitted(operation)));
+
+    OperationStatus status = OperationStatus.pending(operation);
+    pending.put(operation.id(), status);
+    queue.add(operation);
+    return status;
+  }
+
+  /**
+   * Records the outcome of an operation.
+   */
+  public synchronized void complete(
+    Operation operation, OperationState state, String message)
+  {
+    WalEntry entry = WalEntry.completed(operation.id(), state, message);
+    wal.append(encode(entry));
+
+    OperationStatus status = pending.remove(operation.id());
+    if(status != null)
+    {
+      completed.put(operation.id(),
+        status.complete(state, message, entry.time()));
+    }
+
+    if(pending.isEmpty() && wal.size() > compactThreshold)
+    {
+      log.debug("compacting write-ahead log");
+      compact(List.of());
+    }
+  }
+
+  /**
+   * Waits for the next operation to apply.
+   */
+  public Operation take()
+    throws InterruptedException
+  {
+    return queue.take();
+  }
+
+  public Optional<OperationStatus> find(String id)
+  {
+    OperationStatus status = pending.get(id);
+    return Optional.ofNullable(
+      status != null ? status : completed.getIfPresent(id));
+  }
+
+  @PreDestroy
+  public void close()
+    throws IOException
+  {
+    wal.close();
+  }
+
+}
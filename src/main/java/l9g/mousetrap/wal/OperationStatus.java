@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Instant;
+
+/**
+ *
+ * Processing state of an {@link Operation} as reported by the operations
+ * endpoint.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+public record OperationStatus(String id, OperationType type,
+  @JsonIgnore String tokenName, String zone, String name,
+  OperationState state, String message, Instant submitted, Instant completed)
+  {
+
+  public static OperationStatus pending(Operation operation)
+  {
+    return new OperationStatus(operation.id(), operation.type(),
+      operation.tokenName(), operation.zone(), operation.name(),
+      OperationState.PENDING, null, operation.submitted(), null);
+  }
+
+  public OperationStatus complete(
+    OperationState state, String message, Instant completed)
+  {
+    return new OperationStatus(id, type, tokenName, zone, name, state,
+      message, submitted, completed);
+  }
+
+}
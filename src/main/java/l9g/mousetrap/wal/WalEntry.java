@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Thorsten Ludewig (t.ludewig@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package l9g.mousetrap.wal;
+
+import java.time.Instant;
+
+/**
+ *
+ * A single record in the write-ahead log: either a submitted
+ * {@link Operation} or the completion marker for an operation id.
+ *
+ * @author Thorsten Ludewig (t.ludewig@gmail.com)
+ */
+record WalEntry(Operation submit, String done, OperationState state,
+  String message, Instant time)
+  {
+
+  static WalEntry submitted(Operation operation)
+  {
+    return new WalEntry(operation, null, null, null, operation.submitted());
+  }
+
+  static WalEntry completed(String id, OperationState state, String message)
+  {
+    return new WalEntry(null, id, state, message, Instant.now());
+  }
+
+}